@@ -1,4 +1,10 @@
 package com.ryu1sakai.steem;
 
+import lombok.NonNull;
+import lombok.Value;
+
+@Value(staticConstructor = "of")
 public class SteemAccount {
+  @NonNull
+  private String name;
 }
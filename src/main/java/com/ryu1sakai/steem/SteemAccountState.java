@@ -0,0 +1,84 @@
+package com.ryu1sakai.steem;
+
+import com.ryu1sakai.steem.client.exception.MalformedProtocolException;
+import java.util.Map;
+import lombok.Value;
+import lombok.experimental.Wither;
+
+/**
+ * Snapshot of the balances of an account.
+ */
+@Value
+@Wither
+public class SteemAccountState {
+  private String name;
+  private SteemAsset balance;
+  private SteemAsset sbdBalance;
+  private SteemAsset vestingShares;
+  private SteemAsset rewardSteemBalance;
+  private SteemAsset rewardSbdBalance;
+  private SteemAsset rewardVestingBalance;
+  /** Block up to which the state was synchronized with a node. */
+  private long syncedBlockNumber;
+
+  /**
+   * Parses an account of {@code get_accounts} of Condenser API or {@code find_accounts} of
+   * Appbase API.
+   */
+  public static SteemAccountState fromJson(Object json, long syncedBlockNumber) {
+    if (!(json instanceof Map)) {
+      throw new MalformedProtocolException(String.format("Malformed account : %s", json));
+    }
+    Map<?, ?> account = (Map<?, ?>) json;
+    try {
+      return new SteemAccountState(
+          (String) account.get("name"),
+          SteemAsset.fromJson(account.get("balance")),
+          SteemAsset.fromJson(account.get("sbd_balance")),
+          SteemAsset.fromJson(account.get("vesting_shares")),
+          SteemAsset.fromJson(account.get("reward_steem_balance")),
+          SteemAsset.fromJson(account.get("reward_sbd_balance")),
+          SteemAsset.fromJson(account.get("reward_vesting_balance")),
+          syncedBlockNumber);
+    } catch (IllegalArgumentException | ClassCastException | ArithmeticException e) {
+      throw new MalformedProtocolException(String.format("Malformed account : %s", json));
+    }
+  }
+
+  /**
+   * Returns the liquid balance of the symbol, i.e. {@link #getBalance()} for STEEM and {@link
+   * #getSbdBalance()} for SBD.
+   */
+  public SteemAsset getLiquidBalance(SteemAssetSymbol symbol) {
+    switch (symbol) {
+      case STEEM:
+        return balance;
+      case SBD:
+        return sbdBalance;
+      default:
+        return vestingShares;
+    }
+  }
+
+  SteemAccountState addLiquid(SteemAsset amount) {
+    switch (amount.getSymbol()) {
+      case STEEM:
+        return withBalance(balance.add(amount));
+      case SBD:
+        return withSbdBalance(sbdBalance.add(amount));
+      default:
+        return withVestingShares(vestingShares.add(amount));
+    }
+  }
+
+  SteemAccountState addReward(SteemAsset amount) {
+    switch (amount.getSymbol()) {
+      case STEEM:
+        return withRewardSteemBalance(rewardSteemBalance.add(amount));
+      case SBD:
+        return withRewardSbdBalance(rewardSbdBalance.add(amount));
+      default:
+        return withRewardVestingBalance(rewardVestingBalance.add(amount));
+    }
+  }
+}
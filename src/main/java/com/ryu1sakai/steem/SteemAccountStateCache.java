@@ -0,0 +1,273 @@
+package com.ryu1sakai.steem;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.ryu1sakai.steem.client.SteemCallParameter;
+import com.ryu1sakai.steem.client.SteemClient;
+import com.ryu1sakai.steem.client.exception.MalformedProtocolException;
+import com.ryu1sakai.steem.protocol.SteemAppliedOperation;
+import com.ryu1sakai.steem.protocol.SteemBlock;
+import io.reactivex.Completable;
+import io.reactivex.Flowable;
+import io.reactivex.disposables.Disposable;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.UnaryOperator;
+import javax.annotation.Nullable;
+import lombok.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Balances of tracked accounts kept up to date by applying operations of new blocks.
+ *
+ * <p>Accounts are seeded from a node once, and then transfers, claims of rewards, rewards and
+ * vesting withdrawals are applied locally. Rewards and vesting withdrawals are virtual operations,
+ * which {@link #follow(Flowable)} fetches for each block before applying it. When the effect of
+ * an operation on a tracked account cannot be computed locally (e.g. the vests bought by
+ * {@code transfer_to_vesting}), or blocks are skipped, the accounts are marked as drifted and
+ * {@link #resync()} fetches them again.
+ *
+ * <p>States are immutable and updated atomically per account, so reads never block. Operations of
+ * blocks up to {@link SteemAccountState#getSyncedBlockNumber()} of an account are ignored for the
+ * account, since the node already reflected them.
+ */
+public class SteemAccountStateCache {
+  private static final Logger logger = LoggerFactory.getLogger(SteemAccountStateCache.class);
+
+  // Operations which never change the balances held in SteemAccountState
+  private static final Set<String> BALANCE_NEUTRAL_OPERATIONS = ImmutableSet.of(
+      "vote", "comment", "comment_options", "delete_comment", "custom", "custom_json",
+      "custom_binary", "account_update", "account_witness_vote", "account_witness_proxy",
+      "witness_update", "feed_publish", "withdraw_vesting", "set_withdraw_vesting_route",
+      "change_recovery_account");
+
+  private final SteemClient client;
+  private final SteemChainStateProvider chainStateProvider;
+  private final SteemVirtualOperationPipeline virtualOperationPipeline;
+  private final Map<String, SteemAccountState> states = new ConcurrentHashMap<>();
+  private final Set<String> driftedAccounts = ConcurrentHashMap.newKeySet();
+  private final AtomicLong lastAppliedBlockNumber = new AtomicLong();
+
+  public SteemAccountStateCache(SteemClient client) {
+    this(client, new SteemChainStateProvider(client));
+  }
+
+  public SteemAccountStateCache(SteemClient client, SteemChainStateProvider chainStateProvider) {
+    this(client, chainStateProvider, new SteemVirtualOperationPipeline(ImmutableList.of(client)));
+  }
+
+  public SteemAccountStateCache(@NonNull SteemClient client,
+                                @NonNull SteemChainStateProvider chainStateProvider,
+                                @NonNull SteemVirtualOperationPipeline virtualOperationPipeline) {
+    this.client = client;
+    this.chainStateProvider = chainStateProvider;
+    this.virtualOperationPipeline = virtualOperationPipeline;
+  }
+
+  /**
+   * Starts tracking the accounts, fetching their states from a node.
+   */
+  public Completable track(@NonNull Collection<String> names) {
+    return fetch(ImmutableSet.copyOf(names));
+  }
+
+  @Nullable
+  public SteemAccountState get(@NonNull String name) {
+    return states.get(name);
+  }
+
+  public Set<String> getDriftedAccounts() {
+    return ImmutableSet.copyOf(driftedAccounts);
+  }
+
+  /**
+   * Fetches the drifted accounts again.
+   */
+  public Completable resync() {
+    Set<String> names = ImmutableSet.copyOf(driftedAccounts);
+    if (names.isEmpty()) {
+      return Completable.complete();
+    }
+    logger.info("Resynchronizing accounts {}", names);
+    return fetch(names);
+  }
+
+  /**
+   * Applies the blocks in order with their virtual operations, resynchronizing drifted accounts
+   * after each of them.
+   *
+   * <p>If the virtual operations of a block cannot be fetched, its regular operations are applied
+   * alone and all the accounts are marked as drifted.
+   */
+  public Disposable follow(Flowable<SteemBlock> blocks) {
+    return blocks
+        .concatMapCompletable(block -> virtualOperationPipeline
+            .virtualOperations(block.getNumber(), block.getNumber())
+            .toList()
+            .doOnSuccess(virtualOperations -> apply(block, virtualOperations))
+            .doOnError(error -> {
+              logger.warn("Failed to fetch virtual operations of block {}", block.getNumber(),
+                  error);
+              apply(block);
+              driftedAccounts.addAll(states.keySet());
+            })
+            .ignoreElement()
+            .onErrorComplete()
+            .andThen(Completable.defer(this::resync))
+            .doOnError(error -> logger.warn("Failed to resync", error))
+            .onErrorComplete())
+        .subscribe();
+  }
+
+  /**
+   * Applies the regular operations of a block. Blocks must be applied in order.
+   */
+  public void apply(@NonNull SteemBlock block) {
+    apply(block, ImmutableList.of());
+  }
+
+  /**
+   * Applies the regular operations of a block followed by its virtual ones. Blocks must be applied
+   * in order.
+   */
+  public void apply(@NonNull SteemBlock block,
+                    @NonNull List<SteemAppliedOperation> virtualOperations) {
+    long previous = lastAppliedBlockNumber.getAndSet(block.getNumber());
+    if (previous != 0 && block.getNumber() != previous + 1) {
+      logger.warn("Blocks skipped from {} to {}", previous, block.getNumber());
+      driftedAccounts.addAll(states.keySet());
+    }
+    block.getOperations().forEach(this::apply);
+    virtualOperations.forEach(this::apply);
+  }
+
+  /**
+   * Applies an operation, which may be a virtual one such as a reward.
+   */
+  public void apply(@NonNull SteemAppliedOperation operation) {
+    Map<String, Object> value = operation.getValue();
+    switch (operation.getType()) {
+      case "transfer":
+        update(operation, operation.getString("from"),
+            state -> state.addLiquid(asset(value, "amount").negate()));
+        update(operation, operation.getString("to"),
+            state -> state.addLiquid(asset(value, "amount")));
+        break;
+      case "claim_reward_balance":
+        update(operation, operation.getString("account"), state -> claim(state, value));
+        break;
+      case "author_reward":
+        update(operation, operation.getString("author"), state -> state
+            .addReward(asset(value, "sbd_payout"))
+            .addReward(asset(value, "steem_payout"))
+            .addReward(asset(value, "vesting_payout")));
+        break;
+      case "curation_reward":
+        update(operation, operation.getString("curator"),
+            state -> state.addReward(asset(value, "reward")));
+        break;
+      case "comment_benefactor_reward":
+        update(operation, operation.getString("benefactor"), state -> value.containsKey("reward")
+            ? state.addReward(asset(value, "reward"))
+            : state.addReward(asset(value, "sbd_payout"))
+                .addReward(asset(value, "steem_payout"))
+                .addReward(asset(value, "vesting_payout")));
+        break;
+      case "fill_vesting_withdraw":
+        update(operation, operation.getString("from_account"),
+            state -> state.addLiquid(asset(value, "withdrawn").negate()));
+        update(operation, operation.getString("to_account"),
+            state -> state.addLiquid(asset(value, "deposited")));
+        break;
+      default:
+        markDriftedIfMentioned(operation);
+        break;
+    }
+  }
+
+  private Completable fetch(Set<String> names) {
+    List<String> nameList = ImmutableList.copyOf(names);
+    SteemCallParameter parameter = SteemCallParameter.of("database_api", "find_accounts",
+        "get_accounts", ImmutableMap.<String, Object>of("accounts", nameList),
+        ImmutableList.<Object>of(nameList));
+    // Accounts carry no block number, so the heads before and after them bound the block they
+    // reflect. If the head moved in between, the accounts are fetched again on the next resync.
+    return chainStateProvider.refresh()
+        .flatMap(before -> client.call(parameter)
+            .map(result -> accounts(result.getResult()))
+            .flatMap(accounts -> chainStateProvider.fetch()
+                .doOnSuccess(after -> {
+                  long syncedBlockNumber = after.getHeadBlockNumber();
+                  List<SteemAccountState> fetched = accounts.stream()
+                      .map(account -> SteemAccountState.fromJson(account, syncedBlockNumber))
+                      .collect(ImmutableList.toImmutableList());
+                  boolean moved = syncedBlockNumber != before.getHeadBlockNumber();
+                  for (SteemAccountState state : fetched) {
+                    states.put(state.getName(), state);
+                    if (moved) {
+                      driftedAccounts.add(state.getName());
+                    } else {
+                      driftedAccounts.remove(state.getName());
+                    }
+                  }
+                })))
+        .ignoreElement();
+  }
+
+  private static List<?> accounts(Object result) {
+    Object accounts = result;
+    if (accounts instanceof Map) {
+      accounts = ((Map<?, ?>) accounts).get("accounts"); // Appbase API
+    }
+    if (!(accounts instanceof List)) {
+      throw new MalformedProtocolException(String.format("Malformed accounts : %s", accounts));
+    }
+    return ImmutableList.copyOf((List<?>) accounts);
+  }
+
+  private void update(SteemAppliedOperation operation, @Nullable String name,
+                      UnaryOperator<SteemAccountState> updater) {
+    if (name == null) {
+      return;
+    }
+    try {
+      states.computeIfPresent(name, (key, state) -> operation.getBlockNumber()
+          <= state.getSyncedBlockNumber() ? state : updater.apply(state));
+    } catch (IllegalArgumentException | ArithmeticException e) {
+      logger.warn("Failed to apply {} to {}", operation, name, e);
+      driftedAccounts.add(name);
+    }
+  }
+
+  private void markDriftedIfMentioned(SteemAppliedOperation operation) {
+    if (BALANCE_NEUTRAL_OPERATIONS.contains(operation.getType())) {
+      return;
+    }
+    for (Object field : operation.getValue().values()) {
+      SteemAccountState state = field instanceof String ? states.get(field) : null;
+      if (state != null && operation.getBlockNumber() > state.getSyncedBlockNumber()) {
+        driftedAccounts.add(state.getName());
+      }
+    }
+  }
+
+  private static SteemAccountState claim(SteemAccountState state, Map<String, Object> value) {
+    SteemAsset steem = asset(value, "reward_steem");
+    SteemAsset sbd = asset(value, "reward_sbd");
+    SteemAsset vests = asset(value, "reward_vests");
+    return state
+        .addReward(steem.negate()).addLiquid(steem)
+        .addReward(sbd.negate()).addLiquid(sbd)
+        .addReward(vests.negate()).addLiquid(vests);
+  }
+
+  private static SteemAsset asset(Map<String, Object> value, String key) {
+    return SteemAsset.fromJson(value.get(key));
+  }
+}
@@ -1,4 +1,211 @@
 package com.ryu1sakai.steem;
 
-public class SteemAsset {
+import com.google.common.collect.ImmutableMap;
+import java.util.Map;
+import lombok.NonNull;
+import lombok.Value;
+
+/**
+ * Amount of an asset in fixed-point, e.g. 1.000 STEEM is held as 1000 with {@link
+ * SteemAssetSymbol#STEEM}.
+ *
+ * <p>Parsing and formatting work on characters directly, without {@link java.math.BigDecimal} or
+ * intermediate strings, since API results may contain millions of assets. Arithmetic throws
+ * {@link ArithmeticException} on overflow.
+ */
+@Value(staticConstructor = "of")
+public class SteemAsset implements Comparable<SteemAsset> {
+  private static final SteemAssetSymbol[] SYMBOLS = SteemAssetSymbol.values();
+  private static final long[] POWERS_OF_TEN = {
+      1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L};
+
+  private long amount;
+  @NonNull
+  private SteemAssetSymbol symbol;
+
+  /**
+   * Parses an asset of API results, either "1.000 STEEM" or {"amount": "1000", "precision": 3,
+   * "nai": "@@000000021"}.
+   */
+  public static SteemAsset fromJson(Object json) {
+    if (json instanceof CharSequence) {
+      return parse((CharSequence) json);
+    }
+    if (json instanceof Map) {
+      return fromNaiObject((Map<?, ?>) json);
+    }
+    throw new IllegalArgumentException(String.format("Malformed asset : %s", json));
+  }
+
+  /**
+   * Parses the form used in Condenser API, e.g. "1.000 STEEM".
+   */
+  public static SteemAsset parse(@NonNull CharSequence value) {
+    int space = indexOf(value, ' ');
+    if (space < 0) {
+      throw malformed(value);
+    }
+    SteemAssetSymbol symbol = parseSymbol(value, space + 1, value.length());
+    return of(parseAmount(value, 0, space, symbol.getPrecision()), symbol);
+  }
+
+  public static SteemAsset fromNaiObject(@NonNull Map<?, ?> object) {
+    Object amount = object.get("amount");
+    Object precision = object.get("precision");
+    Object nai = object.get("nai");
+    for (SteemAssetSymbol symbol : SYMBOLS) {
+      if (!symbol.getNai().equals(nai)) {
+        continue;
+      }
+      if (!(amount instanceof CharSequence) || !(precision instanceof Number)
+          || ((Number) precision).intValue() != symbol.getPrecision()) {
+        break;
+      }
+      CharSequence digits = (CharSequence) amount;
+      return of(parseAmount(digits, 0, digits.length(), 0), symbol);
+    }
+    throw new IllegalArgumentException(String.format("Malformed asset : %s", object));
+  }
+
+  public SteemAsset add(@NonNull SteemAsset other) {
+    checkSameSymbol(other);
+    return of(Math.addExact(amount, other.amount), symbol);
+  }
+
+  public SteemAsset subtract(@NonNull SteemAsset other) {
+    checkSameSymbol(other);
+    return of(Math.subtractExact(amount, other.amount), symbol);
+  }
+
+  public SteemAsset multiply(long multiplier) {
+    return of(Math.multiplyExact(amount, multiplier), symbol);
+  }
+
+  public SteemAsset negate() {
+    return of(Math.negateExact(amount), symbol);
+  }
+
+  public int signum() {
+    return Long.signum(amount);
+  }
+
+  @Override
+  public int compareTo(SteemAsset other) {
+    checkSameSymbol(other);
+    return Long.compare(amount, other.amount);
+  }
+
+  /**
+   * Returns the form used in Condenser API, e.g. "1.000 STEEM".
+   */
+  public String toLegacyString() {
+    return appendTo(new StringBuilder(32)).toString();
+  }
+
+  /**
+   * Appends the form used in Condenser API, e.g. "1.000 STEEM".
+   */
+  public StringBuilder appendTo(StringBuilder builder) {
+    int precision = symbol.getPrecision();
+    long scale = POWERS_OF_TEN[precision];
+    long integer = amount / scale;
+    long fraction = Math.abs(amount % scale);
+    if (amount < 0 && integer == 0) {
+      builder.append('-');
+    }
+    builder.append(integer);
+    if (precision > 0) {
+      builder.append('.');
+      for (long digit = scale / 10; digit > 1 && digit > fraction; digit /= 10) {
+        builder.append('0');
+      }
+      builder.append(fraction);
+    }
+    return builder.append(' ').append(symbol.name());
+  }
+
+  /**
+   * Returns the form used in Appbase API, e.g. {"amount": "1000", "precision": 3, "nai":
+   * "@@000000021"}.
+   */
+  public Map<String, Object> toNaiObject() {
+    return ImmutableMap.of(
+        "amount", Long.toString(amount),
+        "precision", symbol.getPrecision(),
+        "nai", symbol.getNai());
+  }
+
+  private void checkSameSymbol(SteemAsset other) {
+    if (symbol != other.symbol) {
+      throw new IllegalArgumentException(
+          String.format("Symbol mismatch : %s and %s", symbol, other.symbol));
+    }
+  }
+
+  /**
+   * Parses a decimal into a fixed-point amount with the precision, e.g. "1.5" into 1500 with
+   * precision 3.
+   */
+  static long parseAmount(CharSequence value, int start, int end, int precision) {
+    int index = start;
+    boolean negative = index < end && value.charAt(index) == '-';
+    if (negative) {
+      ++index;
+    }
+    long result = 0;
+    int digits = 0;
+    int fractionDigits = -1;
+    for (; index < end; index++) {
+      char c = value.charAt(index);
+      if (c == '.' && fractionDigits < 0) {
+        fractionDigits = 0;
+        continue;
+      }
+      if (c < '0' || c > '9') {
+        throw malformed(value);
+      }
+      result = Math.addExact(Math.multiplyExact(result, 10), c - '0');
+      ++digits;
+      if (fractionDigits >= 0) {
+        ++fractionDigits;
+      }
+    }
+    if (digits == 0 || fractionDigits > precision) {
+      throw malformed(value);
+    }
+    for (int i = Math.max(fractionDigits, 0); i < precision; i++) {
+      result = Math.multiplyExact(result, 10);
+    }
+    return negative ? -result : result;
+  }
+
+  private static SteemAssetSymbol parseSymbol(CharSequence value, int start, int end) {
+    for (SteemAssetSymbol symbol : SYMBOLS) {
+      String name = symbol.name();
+      if (end - start != name.length()) {
+        continue;
+      }
+      boolean matched = true;
+      for (int i = 0; i < name.length() && matched; i++) {
+        matched = value.charAt(start + i) == name.charAt(i);
+      }
+      if (matched) {
+        return symbol;
+      }
+    }
+    throw malformed(value);
+  }
+
+  private static int indexOf(CharSequence value, char c) {
+    for (int i = 0; i < value.length(); i++) {
+      if (value.charAt(i) == c) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static IllegalArgumentException malformed(CharSequence value) {
+    return new IllegalArgumentException(String.format("Malformed asset : %s", value));
+  }
 }
@@ -0,0 +1,26 @@
+package com.ryu1sakai.steem;
+
+public enum SteemAssetSymbol {
+  STEEM(3, "@@000000021"),
+  SBD(3, "@@000000013"),
+  VESTS(6, "@@000000037");
+
+  private final int precision;
+  private final String nai;
+
+  SteemAssetSymbol(int precision, String nai) {
+    this.precision = precision;
+    this.nai = nai;
+  }
+
+  public int getPrecision() {
+    return precision;
+  }
+
+  /**
+   * Numerical asset identifier, which is used for assets in Appbase API.
+   */
+  public String getNai() {
+    return nai;
+  }
+}
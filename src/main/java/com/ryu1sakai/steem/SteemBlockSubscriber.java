@@ -0,0 +1,195 @@
+package com.ryu1sakai.steem;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.ryu1sakai.steem.client.SteemCallParameter;
+import com.ryu1sakai.steem.client.SteemClient;
+import com.ryu1sakai.steem.client.SteemWebSocketClient;
+import com.ryu1sakai.steem.client.exception.MalformedProtocolException;
+import com.ryu1sakai.steem.protocol.SteemBlock;
+import com.ryu1sakai.steem.protocol.SteemChainState;
+import io.reactivex.Flowable;
+import io.reactivex.Maybe;
+import io.reactivex.Scheduler;
+import io.reactivex.Single;
+import io.reactivex.schedulers.Schedulers;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.annotation.Nullable;
+import lombok.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Follows new blocks of the chain.
+ *
+ * <p>With a {@link SteemWebSocketClient}, a block is fetched as soon as the node pushes a notice
+ * of it, if the node supports {@code set_block_applied_callback}. Otherwise, or once the
+ * connection is lost, the head is polled: right after the next block is expected, and then at
+ * growing intervals until it appears. Polls and fetches of blocks run on the given scheduler,
+ * since clients may block while calling.
+ */
+public class SteemBlockSubscriber {
+  private static final Logger logger = LoggerFactory.getLogger(SteemBlockSubscriber.class);
+
+  /** STEEM_BLOCK_INTERVAL of steemd. */
+  public static final Duration BLOCK_INTERVAL = Duration.ofSeconds(3);
+  public static final Duration MIN_POLL_INTERVAL = Duration.ofMillis(250);
+
+  private static final SteemCallParameter GET_DYNAMIC_GLOBAL_PROPERTIES = SteemCallParameter.of(
+      "database_api", "get_dynamic_global_properties", ImmutableMap.of(), ImmutableList.of());
+  private static final long CALLBACK_ID = 0;
+  private static final SteemCallParameter SET_BLOCK_APPLIED_CALLBACK = SteemCallParameter.of(
+      "database_api", "set_block_applied_callback", ImmutableMap.of("cb", CALLBACK_ID),
+      ImmutableList.of(CALLBACK_ID));
+
+  private final SteemClient client;
+  @Nullable
+  private final SteemWebSocketClient pushClient;
+  private final Scheduler scheduler;
+
+  /**
+   * Creates a subscriber which polls the head.
+   */
+  public SteemBlockSubscriber(SteemClient client) {
+    this(client, Schedulers.io());
+  }
+
+  public SteemBlockSubscriber(SteemClient client, Scheduler scheduler) {
+    this(client, null, scheduler);
+  }
+
+  /**
+   * Creates a subscriber which waits for notices pushed by the node, falling back to polling.
+   */
+  public SteemBlockSubscriber(SteemWebSocketClient client) {
+    this(client, Schedulers.io());
+  }
+
+  public SteemBlockSubscriber(SteemWebSocketClient client, Scheduler scheduler) {
+    this(client, client, scheduler);
+  }
+
+  private SteemBlockSubscriber(@NonNull SteemClient client,
+                               @Nullable SteemWebSocketClient pushClient,
+                               @NonNull Scheduler scheduler) {
+    this.client = client;
+    this.pushClient = pushClient;
+    this.scheduler = scheduler;
+  }
+
+  /**
+   * Emits blocks in order without gaps, from the block number, or from the head if it is 0.
+   */
+  public Flowable<SteemBlock> subscribe(long fromBlockNumber) {
+    return Flowable.defer(() -> {
+      AtomicLong next = new AtomicLong(fromBlockNumber);
+      return heads()
+          .onBackpressureLatest()
+          .concatMap(head -> {
+            next.compareAndSet(0, head);
+            long from = next.get();
+            return Flowable.rangeLong(from, Math.max(0, head - from + 1))
+                .concatMapSingle(this::fetchBlock)
+                .doOnNext(block -> next.set(block.getNumber() + 1))
+                .onErrorResumeNext(error -> {
+                  // Tried again on the next head
+                  logger.warn("Failed to fetch blocks from {} to {}", from, head, error);
+                  return Flowable.empty();
+                });
+          }, 1);
+    });
+  }
+
+  private Flowable<Long> heads() {
+    if (pushClient == null) {
+      return pollHeads();
+    }
+    return pushClient.call(SET_BLOCK_APPLIED_CALLBACK)
+        .ignoreElement()
+        .andThen(pushClient.notices())
+        .filter(params -> params.size() >= 2 && params.get(0) instanceof Number
+            && ((Number) params.get(0)).longValue() == CALLBACK_ID)
+        .map(params -> numberOf(params.get(1)))
+        .onErrorResumeNext(error -> {
+          logger.info("Polling new blocks instead of notices", error);
+          return pollHeads();
+        });
+  }
+
+  private Flowable<Long> pollHeads() {
+    return Flowable.defer(() -> {
+      AtomicLong lastHead = new AtomicLong();
+      AtomicReference<Duration> delay = new AtomicReference<>(Duration.ZERO);
+      return Maybe
+          .defer(() -> Single.timer(delay.get().toMillis(), TimeUnit.MILLISECONDS, scheduler)
+              .flatMap(tick -> client.call(GET_DYNAMIC_GLOBAL_PROPERTIES))
+              .map(result -> SteemChainState.fromDynamicGlobalProperties(result.getResult()))
+              .toMaybe()
+              .doOnError(error -> logger.warn("Failed to poll the head", error))
+              .onErrorComplete()
+              .filter(state -> {
+                if (state.getHeadBlockNumber() <= lastHead.get()) {
+                  return false;
+                }
+                lastHead.set(state.getHeadBlockNumber());
+                delay.set(untilNextBlock(state.getTime()));
+                return true;
+              })
+              .doOnComplete(() -> delay.set(backOff(delay.get()))))
+          .repeat()
+          .map(SteemChainState::getHeadBlockNumber);
+    });
+  }
+
+  private Single<SteemBlock> fetchBlock(long number) {
+    return client.call(SteemBlock.request(number))
+        .map(result -> {
+          SteemBlock block = SteemBlock.fromResult(result.getResult());
+          if (block == null) {
+            throw new IllegalStateException(String.format("Block %d not found", number));
+          }
+          return block;
+        })
+        .subscribeOn(scheduler);
+  }
+
+  private static Duration untilNextBlock(Instant headTime) {
+    return clamp(Duration.between(Instant.now(), headTime.plus(BLOCK_INTERVAL)));
+  }
+
+  private static Duration backOff(Duration delay) {
+    return clamp(delay.multipliedBy(2));
+  }
+
+  private static Duration clamp(Duration delay) {
+    if (delay.compareTo(MIN_POLL_INTERVAL) < 0) {
+      return MIN_POLL_INTERVAL;
+    }
+    return delay.compareTo(BLOCK_INTERVAL) > 0 ? BLOCK_INTERVAL : delay;
+  }
+
+  /**
+   * Returns the number of the block in a notice, which is a block header or a list of it.
+   */
+  private static long numberOf(Object notice) {
+    Object header = notice instanceof List && !((List<?>) notice).isEmpty()
+        ? ((List<?>) notice).get(0) : notice;
+    if (header instanceof Map) {
+      Object blockId = ((Map<?, ?>) header).get("block_id");
+      if (blockId instanceof String) {
+        return SteemBlock.numberOf((String) blockId);
+      }
+      Object previous = ((Map<?, ?>) header).get("previous");
+      if (previous instanceof String) {
+        return SteemBlock.numberOf((String) previous) + 1;
+      }
+    }
+    throw new MalformedProtocolException(String.format("Malformed block notice : %s", notice));
+  }
+}
@@ -0,0 +1,171 @@
+package com.ryu1sakai.steem;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.ryu1sakai.steem.client.SteemClient;
+import com.ryu1sakai.steem.protocol.SteemBinaryWriter;
+import com.ryu1sakai.steem.protocol.SteemChainState;
+import com.ryu1sakai.steem.protocol.SteemOperation;
+import com.ryu1sakai.steem.protocol.SteemSignedTransaction;
+import com.ryu1sakai.steem.protocol.SteemTransaction;
+import io.reactivex.Flowable;
+import io.reactivex.Scheduler;
+import io.reactivex.Single;
+import io.reactivex.schedulers.Schedulers;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nullable;
+import lombok.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Broadcasts a stream of operations packed into as few transactions as possible.
+ *
+ * <p>Operations are taken in batches. Each batch fetches the chain state for TaPoS once, is packed
+ * into transactions within the size limit, and is signed in parallel. The transactions are then
+ * broadcast with bounded concurrency on the given scheduler, spread over the given clients in
+ * turn. Since a transaction is applied atomically, all the operations packed in a failed
+ * transaction are reported as failed, as are all the operations of a batch which could not be
+ * packed or signed.
+ */
+public class SteemBroadcastPipeline {
+  private static final Logger logger = LoggerFactory.getLogger(SteemBroadcastPipeline.class);
+
+  /** STEEM_MAX_TRANSACTION_SIZE of steemd. */
+  public static final int DEFAULT_MAX_TRANSACTION_SIZE = 64 * 1024;
+  public static final int DEFAULT_MAX_OPERATIONS_PER_TRANSACTION = 100;
+  public static final int DEFAULT_BATCH_SIZE = 1000;
+  public static final int DEFAULT_MAX_CONCURRENCY = 4;
+
+  // ref_block_num, ref_block_prefix, expiration, operation count, extensions and one signature
+  private static final int TRANSACTION_OVERHEAD = 2 + 4 + 4 + 3 + 1 + 1 + 65;
+
+  private final SteemCommit commit;
+  private final List<SteemClient> clients;
+  private final int maxTransactionSize;
+  private final int maxOperationsPerTransaction;
+  private final int batchSize;
+  private final int maxConcurrency;
+  private final Scheduler scheduler;
+  private final AtomicInteger clientIndex = new AtomicInteger();
+
+  public SteemBroadcastPipeline(SteemCommit commit, List<? extends SteemClient> clients) {
+    this(commit, clients, DEFAULT_MAX_TRANSACTION_SIZE, DEFAULT_MAX_OPERATIONS_PER_TRANSACTION,
+        DEFAULT_BATCH_SIZE, DEFAULT_MAX_CONCURRENCY);
+  }
+
+  public SteemBroadcastPipeline(@NonNull SteemCommit commit,
+                                @NonNull List<? extends SteemClient> clients,
+                                int maxTransactionSize, int maxOperationsPerTransaction,
+                                int batchSize, int maxConcurrency) {
+    this(commit, clients, maxTransactionSize, maxOperationsPerTransaction, batchSize,
+        maxConcurrency, Schedulers.io());
+  }
+
+  public SteemBroadcastPipeline(@NonNull SteemCommit commit,
+                                @NonNull List<? extends SteemClient> clients,
+                                int maxTransactionSize, int maxOperationsPerTransaction,
+                                int batchSize, int maxConcurrency,
+                                @NonNull Scheduler scheduler) {
+    if (clients.isEmpty()) {
+      throw new IllegalArgumentException("At least one client is required");
+    }
+    this.commit = commit;
+    this.clients = ImmutableList.copyOf(clients);
+    this.maxTransactionSize = maxTransactionSize;
+    this.maxOperationsPerTransaction = maxOperationsPerTransaction;
+    this.batchSize = batchSize;
+    this.maxConcurrency = maxConcurrency;
+    this.scheduler = scheduler;
+  }
+
+  /**
+   * Broadcasts the operations, emitting a result for each of them.
+   *
+   * <p>A batch is closed when it gets full or the source completes, so a slow infinite source
+   * delays its last operations until the batch fills up.
+   */
+  public Flowable<SteemBroadcastResult> broadcast(Flowable<? extends SteemOperation> operations) {
+    return operations
+        .buffer(batchSize)
+        .concatMapSingle(batch -> prepare(batch)
+            .onErrorReturn(error -> {
+              logger.warn("Failed to prepare {} operations", batch.size(), error);
+              return ImmutableList.of(Single.just(results(batch, null, error)));
+            }))
+        .concatMapIterable(broadcasts -> broadcasts)
+        // The clients block while calling, so each broadcast needs its own thread to overlap
+        .flatMap(broadcast -> broadcast.subscribeOn(scheduler).toFlowable(), maxConcurrency)
+        .concatMapIterable(results -> results);
+  }
+
+  @VisibleForTesting
+  List<List<SteemOperation>> pack(List<? extends SteemOperation> operations) {
+    List<List<SteemOperation>> packed = new ArrayList<>();
+    List<SteemOperation> current = new ArrayList<>();
+    int currentSize = TRANSACTION_OVERHEAD;
+    for (SteemOperation operation : operations) {
+      int size = serializedSize(operation);
+      if (!current.isEmpty() && (currentSize + size > maxTransactionSize
+          || current.size() >= maxOperationsPerTransaction)) {
+        packed.add(current);
+        current = new ArrayList<>();
+        currentSize = TRANSACTION_OVERHEAD;
+      }
+      current.add(operation);
+      currentSize += size;
+    }
+    if (!current.isEmpty()) {
+      packed.add(current);
+    }
+    return packed;
+  }
+
+  /**
+   * Packs and signs the batch, returning the broadcasts of its transactions.
+   */
+  private Single<List<Single<List<SteemBroadcastResult>>>> prepare(
+      List<? extends SteemOperation> batch) {
+    return commit.fetchChainState()
+        .map(chainState -> {
+          List<SteemTransaction> transactions = new ArrayList<>();
+          for (List<SteemOperation> operations : pack(batch)) {
+            transactions.add(commit.transaction(chainState, operations));
+          }
+          logger.debug("Packed {} operations into {} transactions at block {}",
+              batch.size(), transactions.size(), chainState.getHeadBlockNumber());
+          return commit.signAll(transactions).stream()
+              .map(this::broadcastTransaction)
+              .collect(ImmutableList.toImmutableList());
+        });
+  }
+
+  private Single<List<SteemBroadcastResult>> broadcastTransaction(SteemSignedTransaction signed) {
+    SteemTransaction transaction = signed.getTransaction();
+    String transactionId = transaction.getTransactionId();
+    SteemClient client = clients.get(Math.floorMod(clientIndex.getAndIncrement(), clients.size()));
+    return SteemCommit.broadcast(client, signed)
+        .toSingle(() -> results(transaction.getOperations(), transactionId, null))
+        .onErrorReturn(error -> {
+          logger.warn("Failed to broadcast transaction<{}>", transactionId, error);
+          return results(transaction.getOperations(), transactionId, error);
+        });
+  }
+
+  private static List<SteemBroadcastResult> results(List<? extends SteemOperation> operations,
+                                                    @Nullable String transactionId,
+                                                    @Nullable Throwable error) {
+    return operations.stream()
+        .map(operation -> SteemBroadcastResult.of(operation, transactionId, error))
+        .collect(ImmutableList.toImmutableList());
+  }
+
+  private static int serializedSize(SteemOperation operation) {
+    SteemBinaryWriter writer = SteemBinaryWriter.reusable();
+    writer.writeVarint32(operation.getTypeId());
+    operation.writeTo(writer);
+    return writer.size();
+  }
+}
@@ -0,0 +1,19 @@
+package com.ryu1sakai.steem;
+
+import com.ryu1sakai.steem.protocol.SteemOperation;
+import javax.annotation.Nullable;
+import lombok.Value;
+
+@Value(staticConstructor = "of")
+public class SteemBroadcastResult {
+  private SteemOperation operation;
+  /** Null if the operation failed before being packed into a signed transaction. */
+  @Nullable
+  private String transactionId;
+  @Nullable
+  private Throwable error;
+
+  public boolean isSuccess() {
+    return error == null;
+  }
+}
@@ -0,0 +1,212 @@
+package com.ryu1sakai.steem;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.ryu1sakai.steem.client.SteemCallParameter;
+import com.ryu1sakai.steem.client.SteemClient;
+import com.ryu1sakai.steem.protocol.SteemChainState;
+import io.reactivex.Flowable;
+import io.reactivex.Scheduler;
+import io.reactivex.Single;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.schedulers.Schedulers;
+import io.reactivex.subjects.SingleSubject;
+import java.io.Closeable;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.annotation.Nullable;
+import lombok.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Shares the head of the chain among transactions instead of fetching it for each of them.
+ *
+ * <p>The state is held as an immutable snapshot, so reads never block. A snapshot older than the
+ * max age is refreshed on read, and {@link #start()} refreshes it in the background at the block
+ * interval so that reads are usually served from memory. Concurrent refreshes share one request.
+ * A block observed elsewhere, e.g. by a block stream, replaces the snapshot as soon as it is newer.
+ */
+public class SteemChainStateProvider implements Closeable {
+  private static final Logger logger = LoggerFactory.getLogger(SteemChainStateProvider.class);
+
+  /** STEEM_BLOCK_INTERVAL of steemd. */
+  public static final Duration DEFAULT_REFRESH_INTERVAL = Duration.ofSeconds(3);
+
+  private static final SteemCallParameter GET_DYNAMIC_GLOBAL_PROPERTIES = SteemCallParameter.of(
+      "database_api", "get_dynamic_global_properties", ImmutableMap.of(), ImmutableList.of());
+
+  private final SteemClient client;
+  private final Duration refreshInterval;
+  private final long maxAgeNanos;
+  private final Scheduler scheduler;
+  private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+  private final AtomicReference<SingleSubject<SteemChainState>> inFlightRefresh
+      = new AtomicReference<>();
+  private final AtomicReference<Disposable> refresher = new AtomicReference<>();
+
+  public SteemChainStateProvider(SteemClient client) {
+    this(client, DEFAULT_REFRESH_INTERVAL, DEFAULT_REFRESH_INTERVAL);
+  }
+
+  public SteemChainStateProvider(SteemClient client, Duration refreshInterval, Duration maxAge) {
+    this(client, refreshInterval, maxAge, Schedulers.io());
+  }
+
+  /**
+   * Creates a provider refreshing in the background on the scheduler, which must allow blocking
+   * calls of the client.
+   */
+  public SteemChainStateProvider(@NonNull SteemClient client, @NonNull Duration refreshInterval,
+                                 @NonNull Duration maxAge, @NonNull Scheduler scheduler) {
+    this.client = client;
+    this.refreshInterval = refreshInterval;
+    maxAgeNanos = maxAge.toNanos();
+    this.scheduler = scheduler;
+  }
+
+  /**
+   * Starts refreshing the state in the background until {@link #close()}.
+   */
+  public void start() {
+    Disposable disposable = Flowable
+        .interval(0, refreshInterval.toMillis(), TimeUnit.MILLISECONDS, scheduler)
+        .onBackpressureDrop()
+        .concatMapCompletable(tick -> refresh()
+            .doOnError(error -> logger.warn("Failed to refresh chain state", error))
+            .ignoreElement()
+            .onErrorComplete())
+        .subscribe();
+    Disposable previous = refresher.getAndSet(disposable);
+    if (previous != null) {
+      previous.dispose();
+    }
+  }
+
+  /**
+   * Returns the current state, fetching it only if the snapshot is missing or too old.
+   */
+  public Single<SteemChainState> get() {
+    return Single.defer(() -> {
+      Snapshot current = snapshot.get();
+      if (current != null && !current.isExpired(maxAgeNanos)) {
+        return Single.just(current.state);
+      }
+      return refresh();
+    });
+  }
+
+  /**
+   * Returns the current snapshot without fetching, or null if none has been fetched yet.
+   */
+  @Nullable
+  public SteemChainState peek() {
+    Snapshot current = snapshot.get();
+    return current == null ? null : current.state;
+  }
+
+  /**
+   * Returns the result of a fetch of the state, joining the one in flight if any.
+   *
+   * <p>The fetch starts on subscription, so subscribing again after a failure fetches again.
+   */
+  public Single<SteemChainState> refresh() {
+    return Single.defer(() -> {
+      while (true) {
+        SingleSubject<SteemChainState> inFlight = inFlightRefresh.get();
+        if (inFlight != null) {
+          return inFlight;
+        }
+        SingleSubject<SteemChainState> request = SingleSubject.create();
+        if (inFlightRefresh.compareAndSet(null, request)) {
+          // Cleared before the result is emitted, so that a retry on it does not join it again
+          fetch().doOnEvent((state, error) -> inFlightRefresh.compareAndSet(request, null))
+              .subscribe(request);
+          return request;
+        }
+      }
+    });
+  }
+
+  /**
+   * Adopts a block observed elsewhere if it is newer than the snapshot.
+   */
+  public void observeBlock(long blockNumber, @NonNull String blockId, @NonNull Instant time) {
+    update(SteemChainState.of(blockNumber, blockId, time), false);
+  }
+
+  /**
+   * Expires the snapshot if a newer block than it is known to exist.
+   */
+  public void observeBlockNumber(long blockNumber) {
+    while (true) {
+      Snapshot current = snapshot.get();
+      if (current == null || current.expired
+          || current.state.getHeadBlockNumber() >= blockNumber) {
+        return;
+      }
+      if (snapshot.compareAndSet(current, current.expire())) {
+        return;
+      }
+    }
+  }
+
+  @Override
+  public void close() {
+    Disposable disposable = refresher.getAndSet(null);
+    if (disposable != null) {
+      disposable.dispose();
+    }
+  }
+
+  /**
+   * Fetches the state now without sharing a fetch in flight, which may have started earlier.
+   */
+  Single<SteemChainState> fetch() {
+    return client.call(GET_DYNAMIC_GLOBAL_PROPERTIES)
+        .map(result -> update(
+            SteemChainState.fromDynamicGlobalProperties(result.getResult()), true));
+  }
+
+  private SteemChainState update(SteemChainState state, boolean fetched) {
+    long now = System.nanoTime();
+    Snapshot next = new Snapshot(state, now, false);
+    while (true) {
+      Snapshot current = snapshot.get();
+      if (current != null
+          && current.state.getHeadBlockNumber() > state.getHeadBlockNumber()) {
+        // A lagging node; keep the newer one, but count the fetch so that reads do not refetch
+        // from it on every call until the max age has passed again
+        if (!fetched || snapshot.compareAndSet(current, new Snapshot(current.state, now, false))) {
+          return current.state;
+        }
+        continue;
+      }
+      if (snapshot.compareAndSet(current, next)) {
+        return state;
+      }
+    }
+  }
+
+  private static final class Snapshot {
+    private final SteemChainState state;
+    private final long fetchedNanos;
+    private final boolean expired;
+
+    Snapshot(SteemChainState state, long fetchedNanos, boolean expired) {
+      this.state = state;
+      this.fetchedNanos = fetchedNanos;
+      this.expired = expired;
+    }
+
+    boolean isExpired(long maxAgeNanos) {
+      return expired || System.nanoTime() - fetchedNanos >= maxAgeNanos;
+    }
+
+    Snapshot expire() {
+      return new Snapshot(state, fetchedNanos, true);
+    }
+  }
+}
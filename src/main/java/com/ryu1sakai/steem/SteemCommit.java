@@ -1,14 +1,105 @@
 package com.ryu1sakai.steem;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.ryu1sakai.steem.client.SteemCallParameter;
 import com.ryu1sakai.steem.client.SteemClient;
+import com.ryu1sakai.steem.protocol.SteemChainState;
+import com.ryu1sakai.steem.protocol.SteemOperation;
+import com.ryu1sakai.steem.protocol.SteemSignedTransaction;
+import com.ryu1sakai.steem.protocol.SteemTransaction;
+import com.ryu1sakai.steem.protocol.SteemTransactionSigner;
+import com.ryu1sakai.steem.protocol.SteemTransferOperation;
 import io.reactivex.Completable;
+import io.reactivex.Single;
+import java.time.Duration;
+import java.util.List;
+import lombok.NonNull;
 
 public class SteemCommit {
+  private static final Duration DEFAULT_EXPIRATION = Duration.ofMinutes(1);
 
-    public SteemCommit(SteemClient client, SteemAccount account, SteemWallet wallet) {
-    }
+  private final SteemClient client;
+  private final SteemAccount account;
+  private final SteemWallet wallet;
+  private final SteemChainStateProvider chainStateProvider;
+  private final SteemTransactionSigner signer;
+  private final Duration expiration;
 
-    public Completable transfer(String to, SteemAsset asset, SteemMemo memo) {
+  public SteemCommit(SteemClient client, SteemAccount account, SteemWallet wallet) {
+    this(client, account, wallet, new SteemChainStateProvider(client));
+  }
 
-    }
+  public SteemCommit(SteemClient client, SteemAccount account, SteemWallet wallet,
+                     SteemChainStateProvider chainStateProvider) {
+    this(client, account, wallet, chainStateProvider, new SteemTransactionSigner(),
+        DEFAULT_EXPIRATION);
+  }
+
+  public SteemCommit(@NonNull SteemClient client, @NonNull SteemAccount account,
+                     @NonNull SteemWallet wallet,
+                     @NonNull SteemChainStateProvider chainStateProvider,
+                     @NonNull SteemTransactionSigner signer, @NonNull Duration expiration) {
+    this.client = client;
+    this.account = account;
+    this.wallet = wallet;
+    this.chainStateProvider = chainStateProvider;
+    this.signer = signer;
+    this.expiration = expiration;
+  }
+
+  public Completable transfer(String to, SteemAsset asset, SteemMemo memo) {
+    return Single.fromCallable(() -> transferOperation(to, asset, memo))
+        .flatMapCompletable(operation -> broadcast(ImmutableList.of(operation)));
+  }
+
+  /**
+   * Makes a transfer operation from the account, encrypting the memo if necessary.
+   */
+  public SteemTransferOperation transferOperation(@NonNull String to, @NonNull SteemAsset asset,
+                                                  @NonNull SteemMemo memo) {
+    return SteemTransferOperation.of(
+        account.getName(), to, asset, memo.encode(wallet.getMemoKey()));
+  }
+
+  /**
+   * Broadcasts the operations in one transaction signed by the active key.
+   */
+  public Completable broadcast(List<? extends SteemOperation> operations) {
+    return fetchChainState()
+        .map(chainState -> sign(transaction(chainState, operations)))
+        .flatMapCompletable(this::broadcast);
+  }
+
+  public Completable broadcast(SteemSignedTransaction transaction) {
+    return broadcast(client, transaction);
+  }
+
+  public SteemTransaction transaction(SteemChainState chainState,
+                                      List<? extends SteemOperation> operations) {
+    return SteemTransaction.of(chainState, expiration, operations);
+  }
+
+  public SteemSignedTransaction sign(SteemTransaction transaction) {
+    return signer.sign(transaction, wallet.getActiveKey());
+  }
+
+  /**
+   * Signs the transactions in parallel by the active key.
+   */
+  public List<SteemSignedTransaction> signAll(List<SteemTransaction> transactions) {
+    return signer.signAll(transactions, wallet.getActiveKey());
+  }
+
+  public Single<SteemChainState> fetchChainState() {
+    return chainStateProvider.get();
+  }
+
+  static Completable broadcast(SteemClient client, SteemSignedTransaction transaction) {
+    SteemCallParameter parameter = SteemCallParameter.of(
+        "network_broadcast_api", "broadcast_transaction",
+        ImmutableMap.of("trx", transaction.toAppbaseJson()),
+        ImmutableList.<Object>of(transaction.toCondenserJson()));
+    return client.call(parameter).ignoreElement();
+  }
 }
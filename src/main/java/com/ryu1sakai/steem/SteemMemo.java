@@ -1,4 +1,47 @@
 package com.ryu1sakai.steem;
 
+import com.ryu1sakai.steem.crypto.SteemMemoCipher;
+import com.ryu1sakai.steem.crypto.SteemPrivateKey;
+import com.ryu1sakai.steem.crypto.SteemPublicKey;
+import javax.annotation.Nullable;
+import lombok.NonNull;
+import lombok.Value;
+
+@Value
 public class SteemMemo {
+  private static final SteemMemo EMPTY = new SteemMemo("", null);
+
+  private String text;
+  @Nullable
+  private SteemPublicKey recipientMemoKey;
+
+  public static SteemMemo empty() {
+    return EMPTY;
+  }
+
+  public static SteemMemo of(@NonNull String text) {
+    return new SteemMemo(text, null);
+  }
+
+  public static SteemMemo encrypted(@NonNull String text,
+                                    @NonNull SteemPublicKey recipientMemoKey) {
+    return new SteemMemo(text, recipientMemoKey);
+  }
+
+  public boolean isEncrypted() {
+    return recipientMemoKey != null;
+  }
+
+  /**
+   * Returns the memo as it is put in an operation, encrypting it if necessary.
+   */
+  public String encode(@Nullable SteemPrivateKey senderMemoKey) {
+    if (!isEncrypted()) {
+      return text;
+    }
+    if (senderMemoKey == null) {
+      throw new IllegalStateException("Memo key is required to encrypt a memo");
+    }
+    return SteemMemoCipher.encrypt(senderMemoKey, recipientMemoKey, text);
+  }
 }
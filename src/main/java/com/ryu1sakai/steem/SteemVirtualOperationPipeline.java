@@ -0,0 +1,269 @@
+package com.ryu1sakai.steem;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.ryu1sakai.steem.client.SteemCallParameter;
+import com.ryu1sakai.steem.client.SteemClient;
+import com.ryu1sakai.steem.client.SteemRpcErrorAction;
+import com.ryu1sakai.steem.client.SteemRpcErrorCodes;
+import com.ryu1sakai.steem.client.exception.MalformedProtocolException;
+import com.ryu1sakai.steem.client.exception.SteemRpcErrorException;
+import com.ryu1sakai.steem.protocol.SteemAppliedOperation;
+import com.ryu1sakai.steem.protocol.SteemBlock;
+import io.reactivex.Flowable;
+import io.reactivex.Scheduler;
+import io.reactivex.Single;
+import io.reactivex.schedulers.Schedulers;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.NonNull;
+import lombok.Value;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Extracts virtual operations, e.g. rewards and filled orders, of a block range.
+ *
+ * <p>The range is split into chunks, which are fetched concurrently on the given scheduler over
+ * the given clients in turn, and emitted in block order. A chunk is fetched with
+ * {@code account_history_api.enumerate_virtual_ops}, following its pagination, and with
+ * {@code get_ops_in_block} for each block from nodes which do not support it. A chunk failing on
+ * a node is fetched again from the next one.
+ */
+public class SteemVirtualOperationPipeline {
+  private static final Logger logger = LoggerFactory.getLogger(SteemVirtualOperationPipeline.class);
+
+  public static final int DEFAULT_CHUNK_SIZE = 100;
+  public static final int DEFAULT_MAX_CONCURRENCY = 8;
+
+  private final List<SteemClient> clients;
+  private final int chunkSize;
+  private final int maxConcurrency;
+  private final Scheduler scheduler;
+  private final Set<SteemClient> rangeEnumerationUnsupported = ConcurrentHashMap.newKeySet();
+
+  public SteemVirtualOperationPipeline(List<? extends SteemClient> clients) {
+    this(clients, DEFAULT_CHUNK_SIZE, DEFAULT_MAX_CONCURRENCY);
+  }
+
+  public SteemVirtualOperationPipeline(List<? extends SteemClient> clients, int chunkSize,
+                                       int maxConcurrency) {
+    this(clients, chunkSize, maxConcurrency, Schedulers.io());
+  }
+
+  public SteemVirtualOperationPipeline(@NonNull List<? extends SteemClient> clients,
+                                       int chunkSize, int maxConcurrency,
+                                       @NonNull Scheduler scheduler) {
+    if (clients.isEmpty()) {
+      throw new IllegalArgumentException("At least one client is required");
+    }
+    if (chunkSize <= 0 || maxConcurrency <= 0) {
+      throw new IllegalArgumentException(String.format(
+          "Chunk size and max concurrency must be positive : %d, %d", chunkSize, maxConcurrency));
+    }
+    this.clients = ImmutableList.copyOf(clients);
+    this.chunkSize = chunkSize;
+    this.maxConcurrency = maxConcurrency;
+    this.scheduler = scheduler;
+  }
+
+  /**
+   * Emits the virtual operations of the blocks from {@code fromBlockNumber} to
+   * {@code toBlockNumber} inclusive, in block order.
+   */
+  public Flowable<SteemAppliedOperation> virtualOperations(long fromBlockNumber,
+                                                           long toBlockNumber) {
+    return chunks(fromBlockNumber, toBlockNumber)
+        // The clients block while calling, so each chunk needs its own thread to overlap
+        .concatMapEager(chunk -> fetch(chunk, 0, this::fetchVirtualOperations)
+            .subscribeOn(scheduler).toFlowable(), maxConcurrency, 1)
+        .concatMapIterable(operations -> operations);
+  }
+
+  /**
+   * Emits both regular and virtual operations of the blocks, in block order. The virtual
+   * operations of a block follow its regular ones.
+   */
+  public Flowable<SteemAppliedOperation> operations(long fromBlockNumber, long toBlockNumber) {
+    return chunks(fromBlockNumber, toBlockNumber)
+        .concatMapEager(chunk -> fetch(chunk, 0, this::fetchOperations)
+            .subscribeOn(scheduler).toFlowable(), maxConcurrency, 1)
+        .concatMapIterable(operations -> operations);
+  }
+
+  private Flowable<Chunk> chunks(long fromBlockNumber, long toBlockNumber) {
+    long count = Math.max(0, (toBlockNumber - fromBlockNumber + chunkSize) / chunkSize);
+    return Flowable.rangeLong(0, count).map(index -> {
+      long from = fromBlockNumber + index * chunkSize;
+      return new Chunk((int) (index % clients.size()), from,
+          Math.min(from + chunkSize - 1, toBlockNumber));
+    });
+  }
+
+  private Single<List<SteemAppliedOperation>> fetch(Chunk chunk, int triedCount,
+                                                    ChunkFetcher fetcher) {
+    SteemClient client = clients.get((chunk.getClientIndex() + triedCount) % clients.size());
+    return fetcher.fetch(client, chunk.getFrom(), chunk.getTo())
+        .onErrorResumeNext(error -> {
+          if (triedCount + 1 >= clients.size()) {
+            return Single.error(error);
+          }
+          logger.warn("Failed to fetch blocks from {} to {}, trying another node",
+              chunk.getFrom(), chunk.getTo(), error);
+          return fetch(chunk, triedCount + 1, fetcher);
+        });
+  }
+
+  private Single<List<SteemAppliedOperation>> fetchOperations(SteemClient client, long from,
+                                                              long to) {
+    Single<List<SteemBlock>> blocks = Flowable.rangeLong(from, to - from + 1)
+        .concatMapSingle(number -> client.call(SteemBlock.request(number))
+            .map(result -> {
+              SteemBlock block = SteemBlock.fromResult(result.getResult());
+              if (block == null) {
+                throw new IllegalStateException(String.format("Block %d not found", number));
+              }
+              return block;
+            }))
+        .toList();
+    return Single.zip(blocks, fetchVirtualOperations(client, from, to), (regular, virtual) -> {
+      Map<Long, List<SteemAppliedOperation>> virtualByBlock = new HashMap<>();
+      virtual.forEach(operation -> virtualByBlock
+          .computeIfAbsent(operation.getBlockNumber(), number -> new ArrayList<>())
+          .add(operation));
+      ImmutableList.Builder<SteemAppliedOperation> operations = ImmutableList.builder();
+      regular.forEach(block -> {
+        operations.addAll(block.getOperations());
+        operations.addAll(virtualByBlock.getOrDefault(block.getNumber(), ImmutableList.of()));
+      });
+      return operations.build();
+    });
+  }
+
+  private Single<List<SteemAppliedOperation>> fetchVirtualOperations(SteemClient client,
+                                                                     long from, long to) {
+    Flowable<Object> items;
+    if (rangeEnumerationUnsupported.contains(client)) {
+      items = getOpsInBlocks(client, from, to);
+    } else {
+      items = enumerateVirtualOps(client, from, to + 1, 0)
+          .onErrorResumeNext(error -> {
+            if (!isMethodUnsupported(error)) {
+              return Flowable.error(error);
+            }
+            logger.info("Range enumeration of virtual operations not supported", error);
+            rangeEnumerationUnsupported.add(client);
+            return getOpsInBlocks(client, from, to);
+          });
+    }
+    return items.toList().map(SteemVirtualOperationPipeline::toOperations);
+  }
+
+  /**
+   * Returns the items of operations in the range, where {@code end} is exclusive.
+   */
+  private Flowable<Object> enumerateVirtualOps(SteemClient client, long begin, long end,
+                                               long operationBegin) {
+    ImmutableMap.Builder<String, Object> params = ImmutableMap.<String, Object>builder()
+        .put("block_range_begin", begin)
+        .put("block_range_end", end);
+    if (operationBegin != 0) {
+      params.put("operation_begin", operationBegin);
+    }
+    SteemCallParameter parameter = SteemCallParameter.of(
+        "account_history_api", "enumerate_virtual_ops", params.build());
+    return client.call(parameter).flatMapPublisher(result -> {
+      if (!(result.getResult() instanceof Map)) {
+        throw new MalformedProtocolException(
+            String.format("Malformed virtual operations : %s", result.getResult()));
+      }
+      Map<?, ?> page = (Map<?, ?>) result.getResult();
+      Flowable<Object> items = Flowable.fromIterable(itemsOf(page));
+      long nextBlock = longOf(page.get("next_block_range_begin"));
+      long nextOperation = longOf(page.get("next_operation_begin"));
+      if (nextBlock <= 0 || nextBlock >= end || nextBlock < begin
+          || (nextBlock == begin && nextOperation <= operationBegin)) {
+        return items;
+      }
+      return items.concatWith(enumerateVirtualOps(client, nextBlock, end, nextOperation));
+    });
+  }
+
+  private static Flowable<Object> getOpsInBlocks(SteemClient client, long from, long to) {
+    return Flowable.rangeLong(from, to - from + 1)
+        .concatMapSingle(number -> client.call(SteemCallParameter.of(
+            "account_history_api", "get_ops_in_block",
+            ImmutableMap.<String, Object>of("block_num", number, "only_virtual", true),
+            ImmutableList.<Object>of(number, true))))
+        .concatMapIterable(result -> itemsOf(result.getResult()));
+  }
+
+  /**
+   * Parses items, numbering the operations in each block from 0.
+   */
+  private static List<SteemAppliedOperation> toOperations(List<Object> items) {
+    ImmutableList.Builder<SteemAppliedOperation> operations = ImmutableList.builder();
+    long blockNumber = -1;
+    int position = 0;
+    for (Object item : items) {
+      Object block = item instanceof Map ? ((Map<?, ?>) item).get("block") : null;
+      Object operation = item instanceof Map ? ((Map<?, ?>) item).get("op") : null;
+      if (!(block instanceof Number) || operation == null) {
+        throw new MalformedProtocolException(String.format("Malformed operation : %s", item));
+      }
+      long number = ((Number) block).longValue();
+      position = number == blockNumber ? position + 1 : 0;
+      blockNumber = number;
+      operations.add(SteemAppliedOperation.parse(operation, number, position, true));
+    }
+    return operations.build();
+  }
+
+  /**
+   * Returns the items in a result, which is {"ops": [...]} of Appbase API or a list of Condenser
+   * API.
+   */
+  private static List<?> itemsOf(Object result) {
+    if (result instanceof Map) {
+      result = ((Map<?, ?>) result).get("ops");
+    }
+    if (!(result instanceof List)) {
+      throw new MalformedProtocolException(String.format("Malformed operations : %s", result));
+    }
+    return (List<?>) result;
+  }
+
+  /**
+   * Returns whether the error tells that the node lacks the method, rather than that the call
+   * failed.
+   */
+  private static boolean isMethodUnsupported(Throwable error) {
+    if (!(error instanceof SteemRpcErrorException)) {
+      return false;
+    }
+    SteemRpcErrorException rpcError = (SteemRpcErrorException) error;
+    return rpcError.getAction() == SteemRpcErrorAction.DOWNGRADE_TO_CONDENSER
+        || Objects.equals(rpcError.getCode(), SteemRpcErrorCodes.JSON_RPC_METHOD_NOT_FOUND);
+  }
+
+  private static long longOf(Object value) {
+    return value instanceof Number ? ((Number) value).longValue() : 0;
+  }
+
+  @FunctionalInterface
+  private interface ChunkFetcher {
+    Single<List<SteemAppliedOperation>> fetch(SteemClient client, long from, long to);
+  }
+
+  @Value
+  private static class Chunk {
+    private int clientIndex;
+    private long from;
+    private long to;
+  }
+}
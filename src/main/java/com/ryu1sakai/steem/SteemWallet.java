@@ -1,4 +1,22 @@
 package com.ryu1sakai.steem;
 
+import com.ryu1sakai.steem.crypto.SteemPrivateKey;
+import javax.annotation.Nullable;
+import lombok.NonNull;
+import lombok.Value;
+
+@Value
 public class SteemWallet {
+  private SteemPrivateKey activeKey;
+  @Nullable
+  private SteemPrivateKey memoKey;
+
+  public static SteemWallet of(@NonNull SteemPrivateKey activeKey) {
+    return new SteemWallet(activeKey, null);
+  }
+
+  public static SteemWallet of(@NonNull SteemPrivateKey activeKey,
+                               @NonNull SteemPrivateKey memoKey) {
+    return new SteemWallet(activeKey, memoKey);
+  }
 }
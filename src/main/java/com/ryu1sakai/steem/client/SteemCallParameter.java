@@ -15,30 +15,40 @@ public class SteemCallParameter {
   private int id;
   private String api;
   private String method;
+  /** The method of Condenser API if it differs from the one of Appbase API. */
+  @Nullable
+  private String condenserMethod;
   private Map<String, Object> appbaseParams;
   @Nullable
   private List<Object> condenserParams;
 
   public static SteemCallParameter of(String api, String method, int id,
                                       @NonNull Map<String, Object> appbaseParams) {
-    return new SteemCallParameter(id, api, method, appbaseParams, null);
+    return new SteemCallParameter(id, api, method, null, appbaseParams, null);
   }
 
   public static SteemCallParameter of(String api, String method, int id,
                                       @NonNull Map<String, Object> appbaseParams,
                                       @NonNull List<Object> condenserParams) {
-    return new SteemCallParameter(id, api, method, appbaseParams, condenserParams);
+    return new SteemCallParameter(id, api, method, null, appbaseParams, condenserParams);
   }
 
   public static SteemCallParameter of(String api, String method,
                                       @NonNull Map<String, Object> appbaseParams) {
-    return new SteemCallParameter(0, api, method, appbaseParams, null);
+    return new SteemCallParameter(0, api, method, null, appbaseParams, null);
   }
 
   public static SteemCallParameter of(String api, String method,
                                       @NonNull Map<String, Object> appbaseParams,
                                       @NonNull List<Object> condenserParams) {
-    return new SteemCallParameter(0, api, method, appbaseParams, condenserParams);
+    return new SteemCallParameter(0, api, method, null, appbaseParams, condenserParams);
+  }
+
+  public static SteemCallParameter of(String api, String method, String condenserMethod,
+                                      @NonNull Map<String, Object> appbaseParams,
+                                      @NonNull List<Object> condenserParams) {
+    return new SteemCallParameter(0, api, method, condenserMethod, appbaseParams,
+        condenserParams);
   }
 
   public boolean isApplicableToCondenserApi() {
@@ -57,7 +67,7 @@ public class SteemCallParameter {
     return new SteemRpcRequest()
         .setJsonrpc(JSON_RPC)
         .setId(id)
-        .setMethod("condenser_api" + '.' + method)
+        .setMethod("condenser_api" + '.' + (condenserMethod == null ? method : condenserMethod))
         .setParams(condenserParams);
   }
 }
@@ -1,4 +1,8 @@
 package com.ryu1sakai.steem.client;
 
-public class SteemClient {
+import io.reactivex.Single;
+
+public interface SteemClient {
+
+  Single<SteemCallResult> call(SteemCallParameter requestParam);
 }
@@ -4,73 +4,226 @@ import com.google.api.client.http.GenericUrl;
 import com.google.api.client.http.HttpContent;
 import com.google.api.client.http.HttpRequest;
 import com.google.api.client.http.HttpRequestFactory;
+import com.google.api.client.http.HttpResponse;
 import com.google.api.client.http.HttpStatusCodes;
 import com.google.api.client.http.HttpTransport;
 import com.google.api.client.http.json.JsonHttpContent;
 import com.google.api.client.json.JsonFactory;
 import com.google.common.annotations.VisibleForTesting;
-import com.google.common.collect.Iterators;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.CountingInputStream;
 import com.ryu1sakai.steem.client.exception.MalformedProtocolException;
 import com.ryu1sakai.steem.client.exception.RecoverableRpcErrorException;
 import com.ryu1sakai.steem.client.exception.RetryExceededException;
+import com.ryu1sakai.steem.client.exception.RetryableRpcErrorException;
 import com.ryu1sakai.steem.client.exception.SteemRpcErrorException;
 import com.ryu1sakai.steem.client.model.SteemRpcRequest;
 import com.ryu1sakai.steem.client.model.SteemRpcResponse;
+import com.ryu1sakai.steem.client.trace.SteemSpan;
+import com.ryu1sakai.steem.client.trace.SteemTracer;
+import io.reactivex.Flowable;
 import io.reactivex.Single;
+import io.reactivex.schedulers.Schedulers;
 import java.io.Closeable;
 import java.io.IOException;
-import java.util.Iterator;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-public class SteemHttpClient implements Closeable {
+public class SteemHttpClient implements SteemClient, Closeable {
   private static final Logger logger = LoggerFactory.getLogger(SteemHttpClient.class);
 
+  // Cheap Appbase-only call; legacy nodes answer it with JSON_RPC_LEGACY_NODE_ERROR
+  private static final SteemCallParameter PROBE_PARAMETER
+      = SteemCallParameter.of("database_api", "get_version", ImmutableMap.of());
+
+  private static final SteemRpcErrorClassifier DEFAULT_ERROR_CLASSIFIER
+      = SteemRpcErrorClassifier.defaults();
+
+  // Delay before asking a node again after a retryable error, doubled per try up to 16 times
+  private static final long RETRY_DELAY_MILLIS = 100;
+  private static final int MAX_RETRY_DELAY_SHIFT = 4;
+
   private final HttpTransport httpTransport;
   private final HttpRequestFactory httpRequestFactory;
   private final JsonFactory jsonFactory;
-  private final Iterator<SteemNode> cyclicNodeIterator; // Not thread safe
+  private final List<SteemNode> nodes;
+  private final AtomicInteger currentNodeIndex = new AtomicInteger();
   private final int maxTries;
-
-  private SteemNode currentNode;
+  private final SteemRpcErrorClassifier errorClassifier;
+  private final SteemTracer tracer;
+  private final SteemNodeRegistry registry;
+  // By identity, as a node hashes its mutable fields
+  private final Map<SteemNode, SteemNodeState> states;
 
   public SteemHttpClient(HttpTransport httpTransport, JsonFactory jsonFactory,
                          List<SteemNode> nodes, int maxTries) {
+    this(httpTransport, jsonFactory, nodes, maxTries, SteemRpcErrorClassifier.defaults());
+  }
+
+  public SteemHttpClient(HttpTransport httpTransport, JsonFactory jsonFactory,
+                         List<SteemNode> nodes, int maxTries,
+                         SteemRpcErrorClassifier errorClassifier) {
+    this(httpTransport, jsonFactory, nodes, maxTries, errorClassifier, SteemTracer.disabled());
+  }
+
+  public SteemHttpClient(HttpTransport httpTransport, JsonFactory jsonFactory,
+                         List<SteemNode> nodes, int maxTries,
+                         SteemRpcErrorClassifier errorClassifier, SteemTracer tracer) {
+    this(httpTransport, jsonFactory, nodes, maxTries, errorClassifier, tracer,
+        new SteemNodeRegistry());
+  }
+
+  /**
+   * Creates a client sharing the states of nodes with other clients through the registry, e.g.
+   * {@link SteemNodeRegistry#shared()}.
+   */
+  public SteemHttpClient(HttpTransport httpTransport, JsonFactory jsonFactory,
+                         List<SteemNode> nodes, int maxTries,
+                         SteemRpcErrorClassifier errorClassifier, SteemTracer tracer,
+                         SteemNodeRegistry registry) {
+    if (nodes.isEmpty()) {
+      throw new IllegalArgumentException("At least one node is required");
+    }
     this.httpTransport = httpTransport;
     httpRequestFactory = httpTransport.createRequestFactory();
     this.jsonFactory = jsonFactory;
-    cyclicNodeIterator = Iterators.cycle(nodes);
-    currentNode = cyclicNodeIterator.next();
+    this.nodes = ImmutableList.copyOf(nodes);
     this.maxTries = maxTries;
+    this.errorClassifier = errorClassifier;
+    this.tracer = tracer;
+    this.registry = registry;
+    Map<SteemNode, SteemNodeState> states = new IdentityHashMap<>();
+    for (SteemNode node : this.nodes) {
+      states.put(node, registry.get(node.getUrl()));
+    }
+    this.states = Collections.unmodifiableMap(states);
   }
 
+  @Override
   public Single<SteemCallResult> call(SteemCallParameter requestParam) {
-    return call(requestParam, 0);
+    return Single.defer(() -> {
+      SteemSpan span = tracer.start("call");
+      if (span.isSampled()) {
+        span.tag("method", requestParam.getApi() + '.' + requestParam.getMethod());
+      }
+      return traced(call(requestParam, 0, span), span);
+    });
   }
 
-  private Single<SteemCallResult> call(SteemCallParameter requestParam, int triedCount) {
-    SteemNode targetNode = currentNode;
-    return callOneNode(targetNode, requestParam)
+  private Single<SteemCallResult> call(SteemCallParameter requestParam, int triedCount,
+                                       SteemSpan callSpan) {
+    int targetIndex = selectNode();
+    SteemNode targetNode = nodes.get(targetIndex);
+    SteemSpan span = callSpan.child("attempt")
+        .tag("node", targetNode.getUrl())
+        .tag("attempt", triedCount + 1);
+    return traced(callOneNode(targetNode, requestParam, span), span)
+            .doOnSuccess(result -> stateOf(targetNode).recordSuccess())
             .onErrorResumeNext(error -> {
               if (!shouldTryAnotherNode(error)) {
                 logger.warn("Unrecoverable error : param<{}> node<{}>",
-                        requestParam, currentNode.getUrl(), error);
+                        requestParam, targetNode.getUrl(), error);
                 return Single.error(error);
               }
+              boolean nodeFailed = !(error instanceof RetryableRpcErrorException);
+              if (nodeFailed) {
+                stateOf(targetNode).recordFailure();
+              }
               if (triedCount + 1 >= maxTries) {
                 logger.warn("Try count exceeded : param<{}> node<{}>",
-                        requestParam, currentNode.getUrl(), error);
+                        requestParam, targetNode.getUrl(), error);
                 return Single.error(new RetryExceededException(
                         String.format("param<%s>", requestParam),
                         error));
               }
-              rotateNode(targetNode);
-              return call(requestParam, triedCount + 1);
+              if (nodeFailed) {
+                rotateNode(targetIndex);
+                return call(requestParam, triedCount + 1, callSpan);
+              }
+              return delayRetry(() -> call(requestParam, triedCount + 1, callSpan), triedCount);
             });
   }
 
+  /**
+   * Sends a raw request as it is, failing over to other nodes on recoverable errors.
+   *
+   * <p>Unlike {@link #call}, the API of the request is not rewritten, and an RPC error which is
+   * not worth another try is returned in the response rather than as an error.
+   */
+  public Single<SteemRpcResponse> forward(SteemRpcRequest request) {
+    return forward(request, 0);
+  }
+
+  private Single<SteemRpcResponse> forward(SteemRpcRequest request, int triedCount) {
+    int targetIndex = selectNode();
+    SteemNode targetNode = nodes.get(targetIndex);
+    return callRpc(targetNode, request)
+        .flatMap(response -> {
+          SteemRpcResponse.Error error = response.getError();
+          if (error == null) {
+            return Single.just(response);
+          }
+          SteemRpcErrorAction action = errorClassifier.classify(error);
+          if (action == SteemRpcErrorAction.RETRY || action == SteemRpcErrorAction.FAILOVER) {
+            return Single.error(handleResponseError(error, action, targetNode.getUrl()));
+          }
+          return Single.just(response);
+        })
+        .doOnSuccess(response -> stateOf(targetNode).recordSuccess())
+        .onErrorResumeNext(error -> {
+          if (!shouldTryAnotherNode(error)) {
+            return Single.error(error);
+          }
+          boolean nodeFailed = !(error instanceof RetryableRpcErrorException);
+          if (nodeFailed) {
+            stateOf(targetNode).recordFailure();
+          }
+          if (triedCount + 1 >= maxTries) {
+            logger.warn("Try count exceeded : request<{}> node<{}>",
+                request, targetNode.getUrl(), error);
+            return Single.error(new RetryExceededException(
+                String.format("request<%s>", request), error));
+          }
+          if (nodeFailed) {
+            rotateNode(targetIndex);
+            return forward(request, triedCount + 1);
+          }
+          return delayRetry(() -> forward(request, triedCount + 1), triedCount);
+        });
+  }
+
+  /**
+   * Probes all the nodes in parallel before serving calls.
+   *
+   * <p>Each node is asked an Appbase API call once, so that its {@code appbaseApiSupported} flag
+   * is settled and a connection to it is established before the first real call. The returned
+   * {@link Single} emits the probe results in the order of the nodes when the client is ready.
+   * A failure of a node is reported in its probe result and does not fail the whole warm-up.
+   */
+  public Single<List<SteemNodeProbe>> warmUp() {
+    return Flowable.fromIterable(nodes)
+        .concatMapEager(node -> probe(node).subscribeOn(Schedulers.io()).toFlowable())
+        .toList()
+        .doOnSuccess(probes -> logger.info("Ready : {}", probes));
+  }
+
+  public SteemRpcErrorClassifier getErrorClassifier() {
+    return errorClassifier;
+  }
+
+  public SteemNodeRegistry getRegistry() {
+    return registry;
+  }
+
   @Override
   public void close() throws IOException {
     httpTransport.shutdown();
@@ -78,35 +231,38 @@ public class SteemHttpClient implements Closeable {
 
   @VisibleForTesting
   static boolean isRecoverableError(SteemRpcResponse.Error error) {
-    int code = error.getCode();
-    String errorMessage = error.getMessage();
-    if (code == SteemRpcErrorCodes.JSON_RPC_ERROR_DURING_CALL
-            && errorMessage.equals(SteemRpcErrorMessages.UNABLE_TO_LOCK_DATABASE)) {
-      return true;
-    }
-    if (code == SteemRpcErrorCodes.JSON_RPC_SERVER_ERROR
-            && errorMessage.equals(SteemRpcErrorMessages.UNKNOWN_EXCEPTION)) {
-      return true;
-    }
-    if (code == SteemRpcErrorCodes.JSON_RPC_INTERNAL_ERROR
-            && errorMessage.equals(SteemRpcErrorMessages.INTERNAL_ERROR)) {
-      return true;
-    }
-    if (code == SteemRpcErrorCodes.JUSSI_UPSTREAM_RESPONSE_ERROR
-            && errorMessage.equals(SteemRpcErrorMessages.UPSTREAM_RESPONSE_ERROR)) {
-      return true;
-    }
-    return false;
+    SteemRpcErrorAction action = DEFAULT_ERROR_CLASSIFIER.peek(error);
+    return action == SteemRpcErrorAction.RETRY || action == SteemRpcErrorAction.FAILOVER;
   }
 
   @VisibleForTesting
-  Single<SteemRpcResponse> callRpc(GenericUrl url, SteemRpcRequest request) {
+  Single<SteemRpcResponse> callRpc(SteemNode node, SteemRpcRequest request) {
+    return callRpc(node, request, SteemSpan.NOOP);
+  }
+
+  private Single<SteemRpcResponse> callRpc(SteemNode node, SteemRpcRequest request,
+                                           SteemSpan parentSpan) {
+    GenericUrl url = node.getUrl();
     return Single
             .fromCallable(() -> {
               HttpContent content = new JsonHttpContent(jsonFactory, request);
               HttpRequest httpRequest = httpRequestFactory.buildPostRequest(url, content);
               httpRequest.setParser(jsonFactory.createJsonObjectParser());
-              return httpRequest.execute();
+              SteemSpan span = parentSpan.child("http");
+              if (span.isSampled()) {
+                span.tag("request_bytes", content.getLength());
+              }
+              try {
+                long startNanos = System.nanoTime();
+                HttpResponse response = httpRequest.execute();
+                stateOf(node).recordLatency(System.nanoTime() - startNanos);
+                span.tag("status", response.getStatusCode());
+                span.end();
+                return response;
+              } catch (IOException | RuntimeException e) {
+                span.end(e);
+                throw e;
+              }
             })
             .flatMap(response -> {
               if (!isSuccessStatusCode(response.getStatusCode())) {
@@ -115,39 +271,137 @@ public class SteemHttpClient implements Closeable {
                 logger.warn(message);
                 return Single.error(new RecoverableRpcErrorException(message));
               }
-              return Single.just(response.parseAs(SteemRpcResponse.class));
+              SteemSpan span = parentSpan.child("parse");
+              try {
+                SteemRpcResponse parsed;
+                if (span.isSampled()) {
+                  // The body is read while parsing, possibly chunked or decompressed
+                  CountingInputStream content = new CountingInputStream(response.getContent());
+                  parsed = jsonFactory.createJsonObjectParser().parseAndClose(
+                      content, response.getContentCharset(), SteemRpcResponse.class);
+                  span.tag("response_bytes", content.getCount());
+                } else {
+                  parsed = response.parseAs(SteemRpcResponse.class);
+                }
+                span.end();
+                return Single.just(parsed);
+              } catch (IOException | RuntimeException e) {
+                span.end(e);
+                throw e;
+              }
             });
   }
 
-  private Single<SteemCallResult> callOneNode(SteemNode node, SteemCallParameter requestParam) {
+  private Single<SteemCallResult> callOneNode(SteemNode node, SteemCallParameter requestParam,
+                                              SteemSpan span) {
     GenericUrl url = node.getUrl();
-    boolean usingAppbaseApi = node.isAppbaseApiSupported();
+    boolean usingAppbaseApi = isAppbaseApiSupported(node);
     SteemRpcRequest request =
             usingAppbaseApi ? requestParam.forAppbaseApi() : requestParam.forCondenserApi();
-    return callRpc(url, request)
+    span.tag("api", usingAppbaseApi ? "appbase" : "condenser");
+    return callRpc(node, request, span)
             .flatMap(response -> {
               SteemRpcResponse.Error error = response.getError();
               if (error == null) {
                 return Single.just(SteemCallResult.of(response.getResult()));
               }
-              if (usingAppbaseApi && isErrorFromLegacyNode(error)) {
+              SteemRpcErrorAction action = errorClassifier.classify(error);
+              if (usingAppbaseApi && action == SteemRpcErrorAction.DOWNGRADE_TO_CONDENSER) {
                 logger.info("Stop using Appbase API to {}", url);
-                node.setAppbaseApiSupported(false);
+                setAppbaseApiSupported(node, false);
                 if (requestParam.isApplicableToCondenserApi()) {
-                  return callOneNode(node, requestParam);
+                  SteemSpan fallbackSpan = span.child("fallback");
+                  return traced(callOneNode(node, requestParam, fallbackSpan), fallbackSpan);
                 }
               }
-              return Single.error(handleResponseError(response.getError(), node));
+              return Single.error(handleResponseError(error, action, node.getUrl()));
             });
   }
 
-  private void rotateNode(SteemNode before) {
-    synchronized (cyclicNodeIterator) {
-      if (currentNode != before) {
-        return; // Already rotated by another thread
+  private Single<SteemNodeProbe> probe(SteemNode node) {
+    GenericUrl url = node.getUrl();
+    return Single.defer(() -> {
+      long startNanos = System.nanoTime();
+      return callRpc(node, PROBE_PARAMETER.forAppbaseApi())
+          .map(response -> {
+            Duration latency = Duration.ofNanos(System.nanoTime() - startNanos);
+            SteemRpcResponse.Error error = response.getError();
+            if (error == null) {
+              setAppbaseApiSupported(node, true);
+            } else if (errorClassifier.peek(error) == SteemRpcErrorAction.DOWNGRADE_TO_CONDENSER) {
+              logger.info("Stop using Appbase API to {}", url);
+              setAppbaseApiSupported(node, false);
+            }
+            stateOf(node).recordSuccess();
+            return SteemNodeProbe.reachable(node, latency);
+          });
+    }).onErrorReturn(error -> {
+      logger.warn("Failed to probe node<{}>", url, error);
+      stateOf(node).recordFailure();
+      return SteemNodeProbe.unreachable(node, error);
+    });
+  }
+
+  private static <T> Single<T> traced(Single<T> single, SteemSpan span) {
+    if (!span.isSampled()) {
+      return single;
+    }
+    return single
+        .doOnSuccess(result -> span.end())
+        .doOnError(span::end)
+        .doOnDispose(span::end);
+  }
+
+  /**
+   * Tries the same node again after a while, giving its transient error, e.g. a database lock,
+   * time to clear.
+   */
+  private static <T> Single<T> delayRetry(Callable<Single<T>> retry, int triedCount) {
+    long delayMillis = RETRY_DELAY_MILLIS << Math.min(triedCount, MAX_RETRY_DELAY_SHIFT);
+    return Single.defer(retry).delaySubscription(delayMillis, TimeUnit.MILLISECONDS,
+        Schedulers.io());
+  }
+
+  /**
+   * Returns the index of the current node, moving off it first if it is unavailable.
+   */
+  private int selectNode() {
+    int index = currentNodeIndex.get();
+    if (!stateOf(nodes.get(index)).isAvailable()) {
+      rotateNode(index);
+      index = currentNodeIndex.get();
+    }
+    return index;
+  }
+
+  /**
+   * Moves to the next available node, or just the next one if none is available.
+   */
+  private void rotateNode(int before) {
+    int next = (before + 1) % nodes.size();
+    for (int i = 1; i < nodes.size(); i++) {
+      int candidate = (before + i) % nodes.size();
+      if (stateOf(nodes.get(candidate)).isAvailable()) {
+        next = candidate;
+        break;
       }
-      currentNode = cyclicNodeIterator.next();
     }
+    // Fails if already rotated by another thread
+    currentNodeIndex.compareAndSet(before, next);
+  }
+
+  private SteemNodeState stateOf(SteemNode node) {
+    return states.get(node);
+  }
+
+  private boolean isAppbaseApiSupported(SteemNode node) {
+    Boolean supported = stateOf(node).getAppbaseApiSupported();
+    return supported != null ? supported : node.isAppbaseApiSupported();
+  }
+
+  private void setAppbaseApiSupported(SteemNode node, boolean supported) {
+    node.setAppbaseApiSupported(supported);
+    stateOf(node).setAppbaseApiSupported(supported);
   }
 
   private static boolean shouldTryAnotherNode(Throwable error) {
@@ -165,25 +419,26 @@ public class SteemHttpClient implements Closeable {
     return false;
   }
 
-  private static boolean isErrorFromLegacyNode(SteemRpcResponse.Error error) {
-
-    return error.getCode() == SteemRpcErrorCodes.JSON_RPC_LEGACY_NODE_ERROR;
-  }
-
-  private static Throwable handleResponseError(SteemRpcResponse.Error error, SteemNode node) {
+  static Throwable handleResponseError(SteemRpcResponse.Error error, SteemRpcErrorAction action,
+                                       Object nodeUrl) {
     if (error.getCode() == null || error.getMessage() == null) {
-      String message = String.format("Malformed error from node<%s> : %s", node.getUrl(), error);
+      String message = String.format("Malformed error from node<%s> : %s", nodeUrl, error);
       logger.warn(message);
       return new MalformedProtocolException(message);
     }
-    if (isRecoverableError(error)) {
-      String message = String.format("Recoverable error from node<%s> : %s", node.getUrl(), error);
+    if (action == SteemRpcErrorAction.RETRY) {
+      String message = String.format("Retryable error from node<%s> : %s", nodeUrl, error);
+      logger.info(message);
+      return new RetryableRpcErrorException(message);
+    }
+    if (action == SteemRpcErrorAction.FAILOVER) {
+      String message = String.format("Recoverable error from node<%s> : %s", nodeUrl, error);
       logger.info(message);
       return new RecoverableRpcErrorException(message);
     }
-    String message = String.format("Unrecoverable error from node<%s> : %s", node.getUrl(), error);
+    String message = String.format("Unrecoverable error from node<%s> : %s", nodeUrl, error);
     logger.warn(message);
-    return new SteemRpcErrorException(message);
+    return new SteemRpcErrorException(message, error.getCode(), action);
   }
 
   private static boolean isSuccessStatusCode(int statusCode) {
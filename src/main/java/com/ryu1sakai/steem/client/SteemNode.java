@@ -9,5 +9,5 @@ import lombok.experimental.Accessors;
 public class SteemNode {
   private GenericUrl url;
 
-  private boolean appbaseApiSupported;
+  private volatile boolean appbaseApiSupported;
 }
@@ -0,0 +1,10 @@
+package com.ryu1sakai.steem.client;
+
+/**
+ * Receives changes of the health or capability of nodes in a {@link SteemNodeRegistry}. It is
+ * called on the thread which observed the change, so it must be fast and thread safe.
+ */
+@FunctionalInterface
+public interface SteemNodeListener {
+  void onChanged(SteemNodeStatus status);
+}
@@ -0,0 +1,24 @@
+package com.ryu1sakai.steem.client;
+
+import java.time.Duration;
+import javax.annotation.Nullable;
+import lombok.Value;
+
+@Value
+public class SteemNodeProbe {
+  private SteemNode node;
+  private boolean reachable;
+  private boolean appbaseApiSupported;
+  @Nullable
+  private Duration latency;
+  @Nullable
+  private Throwable error;
+
+  public static SteemNodeProbe reachable(SteemNode node, Duration latency) {
+    return new SteemNodeProbe(node, true, node.isAppbaseApiSupported(), latency, null);
+  }
+
+  public static SteemNodeProbe unreachable(SteemNode node, Throwable error) {
+    return new SteemNodeProbe(node, false, node.isAppbaseApiSupported(), null, error);
+  }
+}
@@ -0,0 +1,89 @@
+package com.ryu1sakai.steem.client;
+
+import com.google.api.client.http.GenericUrl;
+import com.google.common.collect.ImmutableList;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import lombok.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * States of nodes shared by clients, so that a node found down or legacy by one client is
+ * avoided or downgraded by all of them. Changes are published to the listeners.
+ *
+ * <p>Each {@link SteemHttpClient} has its own registry unless one is given, and
+ * {@link #shared()} is the one to share across the process.
+ */
+public class SteemNodeRegistry {
+  private static final Logger logger = LoggerFactory.getLogger(SteemNodeRegistry.class);
+
+  public static final Duration DEFAULT_MIN_BACKOFF = Duration.ofSeconds(1);
+  public static final Duration DEFAULT_MAX_BACKOFF = Duration.ofMinutes(1);
+
+  private static final SteemNodeRegistry SHARED = new SteemNodeRegistry();
+
+  private final Duration minBackoff;
+  private final Duration maxBackoff;
+  private final ConcurrentMap<String, SteemNodeState> states = new ConcurrentHashMap<>();
+  private final List<SteemNodeListener> listeners = new CopyOnWriteArrayList<>();
+
+  public SteemNodeRegistry() {
+    this(DEFAULT_MIN_BACKOFF, DEFAULT_MAX_BACKOFF);
+  }
+
+  public SteemNodeRegistry(@NonNull Duration minBackoff, @NonNull Duration maxBackoff) {
+    this.minBackoff = minBackoff;
+    this.maxBackoff = maxBackoff;
+  }
+
+  public static SteemNodeRegistry shared() {
+    return SHARED;
+  }
+
+  public SteemNodeState get(@NonNull GenericUrl url) {
+    return get(url.build());
+  }
+
+  public SteemNodeState get(@NonNull String url) {
+    SteemNodeState state = states.get(url); // Avoids locking a bin of the map on hits
+    return state != null ? state : states.computeIfAbsent(url, u -> new SteemNodeState(this, u));
+  }
+
+  public List<SteemNodeStatus> getStatuses() {
+    return states.values().stream()
+        .map(SteemNodeState::toStatus)
+        .collect(ImmutableList.toImmutableList());
+  }
+
+  public void addListener(@NonNull SteemNodeListener listener) {
+    listeners.add(listener);
+  }
+
+  public void removeListener(SteemNodeListener listener) {
+    listeners.remove(listener);
+  }
+
+  Duration getMinBackoff() {
+    return minBackoff;
+  }
+
+  Duration getMaxBackoff() {
+    return maxBackoff;
+  }
+
+  void publish(SteemNodeState state) {
+    SteemNodeStatus status = state.toStatus();
+    logger.info("Node changed : {}", status);
+    for (SteemNodeListener listener : listeners) {
+      try {
+        listener.onChanged(status);
+      } catch (RuntimeException e) {
+        logger.warn("Listener failed on {}", status, e);
+      }
+    }
+  }
+}
@@ -0,0 +1,100 @@
+package com.ryu1sakai.steem.client;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nullable;
+
+/**
+ * Health, capability and latency of a node, updated lock-free by any number of clients.
+ *
+ * <p>A failing node is unavailable for a backoff period, which doubles with each consecutive
+ * failure, and becomes healthy again on the first success.
+ */
+public class SteemNodeState {
+  private static final int CAPABILITY_UNKNOWN = 0;
+  private static final int CAPABILITY_APPBASE = 1;
+  private static final int CAPABILITY_CONDENSER = 2;
+  private static final int LATENCY_WEIGHT_SHIFT = 3; // 1/8 for a new sample, as TCP SRTT
+
+  private final SteemNodeRegistry registry;
+  private final String url;
+  private final AtomicInteger capability = new AtomicInteger(CAPABILITY_UNKNOWN);
+  private final AtomicInteger consecutiveFailures = new AtomicInteger();
+  private final AtomicLong unavailableUntilNanos = new AtomicLong();
+  private volatile long latencyNanos;
+
+  SteemNodeState(SteemNodeRegistry registry, String url) {
+    this.registry = registry;
+    this.url = url;
+  }
+
+  public String getUrl() {
+    return url;
+  }
+
+  public boolean isHealthy() {
+    return consecutiveFailures.get() == 0;
+  }
+
+  /**
+   * Returns whether the node is healthy or its backoff period has passed.
+   */
+  public boolean isAvailable() {
+    return isHealthy() || System.nanoTime() - unavailableUntilNanos.get() >= 0;
+  }
+
+  @Nullable
+  public Boolean getAppbaseApiSupported() {
+    switch (capability.get()) {
+      case CAPABILITY_APPBASE:
+        return true;
+      case CAPABILITY_CONDENSER:
+        return false;
+      default:
+        return null;
+    }
+  }
+
+  public void setAppbaseApiSupported(boolean appbaseApiSupported) {
+    int value = appbaseApiSupported ? CAPABILITY_APPBASE : CAPABILITY_CONDENSER;
+    if (capability.getAndSet(value) != value) {
+      registry.publish(this);
+    }
+  }
+
+  public Duration getLatency() {
+    return Duration.ofNanos(latencyNanos);
+  }
+
+  /**
+   * Folds a sample into the moving average. Concurrent samples may overwrite each other, which
+   * an estimate tolerates better than a contended compare-and-set loop on every call.
+   */
+  public void recordLatency(long nanos) {
+    long average = latencyNanos;
+    latencyNanos = average == 0 ? nanos : average + ((nanos - average) >> LATENCY_WEIGHT_SHIFT);
+  }
+
+  public void recordSuccess() {
+    // Reads first, so that successes on a healthy node do not write the shared cache line
+    if (consecutiveFailures.get() != 0 && consecutiveFailures.getAndSet(0) != 0) {
+      registry.publish(this);
+    }
+  }
+
+  public void recordFailure() {
+    int failures = consecutiveFailures.incrementAndGet();
+    long backoffNanos = Math.min(registry.getMaxBackoff().toNanos(),
+        registry.getMinBackoff().toNanos() << Math.min(failures - 1, 20));
+    unavailableUntilNanos.set(System.nanoTime() + backoffNanos);
+    if (failures == 1) {
+      registry.publish(this);
+    }
+  }
+
+  public SteemNodeStatus toStatus() {
+    return new SteemNodeStatus(url, isHealthy(), getAppbaseApiSupported(),
+        consecutiveFailures.get(), getLatency());
+  }
+}
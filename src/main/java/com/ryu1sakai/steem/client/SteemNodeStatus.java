@@ -0,0 +1,20 @@
+package com.ryu1sakai.steem.client;
+
+import java.time.Duration;
+import javax.annotation.Nullable;
+import lombok.Value;
+
+/**
+ * Snapshot of what is known about a node.
+ */
+@Value
+public class SteemNodeStatus {
+  private String url;
+  private boolean healthy;
+  /** Null until it is known. */
+  @Nullable
+  private Boolean appbaseApiSupported;
+  private int consecutiveFailures;
+  /** Exponentially weighted moving average of response times. */
+  private Duration latency;
+}
@@ -0,0 +1,12 @@
+package com.ryu1sakai.steem.client;
+
+public enum SteemRpcErrorAction {
+  /** Retry the call on the same node after a short backoff. */
+  RETRY,
+  /** Retry the call on the next node. */
+  FAILOVER,
+  /** Stop using Appbase API to the node and call it again with Condenser API. */
+  DOWNGRADE_TO_CONDENSER,
+  /** Give up the call. */
+  FAIL,
+}
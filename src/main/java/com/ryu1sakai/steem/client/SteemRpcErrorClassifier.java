@@ -0,0 +1,283 @@
+package com.ryu1sakai.steem.client;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.ryu1sakai.steem.client.model.SteemRpcResponse;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+import javax.annotation.Nullable;
+import lombok.NonNull;
+
+/**
+ * Decides what to do with an error returned by a node.
+ *
+ * <p>Rules are looked up in the following order, and the first matching one wins:
+ * <ol>
+ *   <li>code and exact message</li>
+ *   <li>code and {@link SteemRpcResponse.ErrorData#getName() data name}</li>
+ *   <li>code and message pattern, in the order of registration</li>
+ *   <li>code only</li>
+ *   <li>data name only</li>
+ *   <li>the fallback action</li>
+ * </ol>
+ * All the rules are indexed on {@link Builder#build()}, so that a classification costs a few
+ * hash lookups unless message patterns are registered for the code. How many times each rule
+ * fired is counted and available through {@link #getRuleCounts()} and {@link #getActionCounts()}.
+ */
+public class SteemRpcErrorClassifier {
+
+  private final ImmutableMap<Integer, CodeRules> codeRules;
+  private final ImmutableMap<String, Rule> dataNameRules;
+  private final Rule fallbackRule;
+  private final ImmutableList<Rule> allRules;
+  private final Map<SteemRpcErrorAction, LongAdder> actionCounts;
+
+  private SteemRpcErrorClassifier(Builder builder) {
+    ImmutableList.Builder<Rule> allRulesBuilder = ImmutableList.builder();
+    ImmutableMap.Builder<Integer, CodeRules> codeRulesBuilder = ImmutableMap.builder();
+    builder.codeRules.forEach((code, rules) -> {
+      CodeRules built = rules.build();
+      allRulesBuilder.addAll(built.all());
+      codeRulesBuilder.put(code, built);
+    });
+    codeRules = codeRulesBuilder.build();
+    dataNameRules = ImmutableMap.copyOf(Maps.transformValues(builder.dataNameRules, Rule::copy));
+    allRulesBuilder.addAll(dataNameRules.values());
+    fallbackRule = new Rule("otherwise", builder.fallbackAction);
+    allRules = allRulesBuilder.add(fallbackRule).build();
+
+    actionCounts = new EnumMap<>(SteemRpcErrorAction.class);
+    for (SteemRpcErrorAction action : SteemRpcErrorAction.values()) {
+      actionCounts.put(action, new LongAdder());
+    }
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Returns a builder which already has the rules known to be used by steemd and jussi.
+   */
+  public static Builder defaultBuilder() {
+    return new Builder()
+        .onMessage(SteemRpcErrorCodes.JSON_RPC_ERROR_DURING_CALL,
+            SteemRpcErrorMessages.UNABLE_TO_LOCK_DATABASE, SteemRpcErrorAction.FAILOVER)
+        .onMessage(SteemRpcErrorCodes.JSON_RPC_SERVER_ERROR,
+            SteemRpcErrorMessages.UNKNOWN_EXCEPTION, SteemRpcErrorAction.FAILOVER)
+        .onMessage(SteemRpcErrorCodes.JSON_RPC_INTERNAL_ERROR,
+            SteemRpcErrorMessages.INTERNAL_ERROR, SteemRpcErrorAction.FAILOVER)
+        .onMessage(SteemRpcErrorCodes.JUSSI_UPSTREAM_RESPONSE_ERROR,
+            SteemRpcErrorMessages.UPSTREAM_RESPONSE_ERROR, SteemRpcErrorAction.FAILOVER)
+        .onCode(SteemRpcErrorCodes.JSON_RPC_LEGACY_NODE_ERROR,
+            SteemRpcErrorAction.DOWNGRADE_TO_CONDENSER)
+        .otherwise(SteemRpcErrorAction.FAIL);
+  }
+
+  public static SteemRpcErrorClassifier defaults() {
+    return defaultBuilder().build();
+  }
+
+  /**
+   * Classifies the error and counts the classification.
+   */
+  public SteemRpcErrorAction classify(SteemRpcResponse.Error error) {
+    Rule rule = lookup(error);
+    rule.count.increment();
+    actionCounts.get(rule.action).increment();
+    return rule.action;
+  }
+
+  /**
+   * Classifies the error without counting it.
+   */
+  public SteemRpcErrorAction peek(SteemRpcResponse.Error error) {
+    return lookup(error).action;
+  }
+
+  public Map<String, Long> getRuleCounts() {
+    Map<String, Long> counts = new LinkedHashMap<>();
+    for (Rule rule : allRules) {
+      counts.merge(rule.description, rule.count.sum(), Long::sum);
+    }
+    return counts;
+  }
+
+  public Map<SteemRpcErrorAction, Long> getActionCounts() {
+    Map<SteemRpcErrorAction, Long> counts = new EnumMap<>(SteemRpcErrorAction.class);
+    actionCounts.forEach((action, count) -> counts.put(action, count.sum()));
+    return counts;
+  }
+
+  private Rule lookup(SteemRpcResponse.Error error) {
+    String message = error.getMessage();
+    String dataName = error.getData() == null ? null : error.getData().getName();
+    CodeRules rules = error.getCode() == null ? null : codeRules.get(error.getCode());
+    if (rules != null) {
+      Rule rule = rules.lookup(message, dataName);
+      if (rule != null) {
+        return rule;
+      }
+    }
+    if (dataName != null) {
+      Rule rule = dataNameRules.get(dataName);
+      if (rule != null) {
+        return rule;
+      }
+    }
+    return fallbackRule;
+  }
+
+  private static class Rule {
+    final String description;
+    final SteemRpcErrorAction action;
+    final LongAdder count = new LongAdder();
+
+    Rule(String description, SteemRpcErrorAction action) {
+      this.description = description;
+      this.action = action;
+    }
+
+    Rule copy() {
+      return new Rule(description, action);
+    }
+  }
+
+  private static class PatternRule extends Rule {
+    private final Pattern pattern;
+
+    PatternRule(String description, SteemRpcErrorAction action, Pattern pattern) {
+      super(description, action);
+      this.pattern = pattern;
+    }
+
+    @Override
+    PatternRule copy() {
+      return new PatternRule(description, action, pattern);
+    }
+  }
+
+  private static class CodeRules {
+    private final ImmutableMap<String, Rule> messageRules;
+    private final ImmutableMap<String, Rule> dataNameRules;
+    private final ImmutableList<PatternRule> patternRules;
+    @Nullable
+    private final Rule codeRule;
+
+    CodeRules(Map<String, Rule> messageRules, Map<String, Rule> dataNameRules,
+              List<PatternRule> patternRules, @Nullable Rule codeRule) {
+      this.messageRules = ImmutableMap.copyOf(messageRules);
+      this.dataNameRules = ImmutableMap.copyOf(dataNameRules);
+      this.patternRules = ImmutableList.copyOf(patternRules);
+      this.codeRule = codeRule;
+    }
+
+    @Nullable
+    Rule lookup(@Nullable String message, @Nullable String dataName) {
+      if (message != null) {
+        Rule rule = messageRules.get(message);
+        if (rule != null) {
+          return rule;
+        }
+      }
+      if (dataName != null) {
+        Rule rule = dataNameRules.get(dataName);
+        if (rule != null) {
+          return rule;
+        }
+      }
+      if (message != null) {
+        for (PatternRule rule : patternRules) {
+          if (rule.pattern.matcher(message).find()) {
+            return rule;
+          }
+        }
+      }
+      return codeRule;
+    }
+
+    List<Rule> all() {
+      List<Rule> rules = new ArrayList<>(messageRules.values());
+      rules.addAll(dataNameRules.values());
+      rules.addAll(patternRules);
+      if (codeRule != null) {
+        rules.add(codeRule);
+      }
+      return rules;
+    }
+  }
+
+  public static class Builder {
+    private final Map<Integer, CodeRulesBuilder> codeRules = new LinkedHashMap<>();
+    private final Map<String, Rule> dataNameRules = new LinkedHashMap<>();
+    private SteemRpcErrorAction fallbackAction = SteemRpcErrorAction.FAIL;
+
+    private Builder() {}
+
+    public Builder onCode(int code, @NonNull SteemRpcErrorAction action) {
+      codeRules(code).codeRule = new Rule(String.format("code<%d>", code), action);
+      return this;
+    }
+
+    public Builder onMessage(int code, @NonNull String message,
+                             @NonNull SteemRpcErrorAction action) {
+      String description = String.format("code<%d> message<%s>", code, message);
+      codeRules(code).messageRules.put(message, new Rule(description, action));
+      return this;
+    }
+
+    public Builder onMessagePattern(int code, @NonNull Pattern pattern,
+                                    @NonNull SteemRpcErrorAction action) {
+      String description = String.format("code<%d> pattern<%s>", code, pattern);
+      codeRules(code).patternRules.add(new PatternRule(description, action, pattern));
+      return this;
+    }
+
+    public Builder onDataName(int code, @NonNull String name,
+                              @NonNull SteemRpcErrorAction action) {
+      String description = String.format("code<%d> name<%s>", code, name);
+      codeRules(code).dataNameRules.put(name, new Rule(description, action));
+      return this;
+    }
+
+    public Builder onDataName(@NonNull String name, @NonNull SteemRpcErrorAction action) {
+      dataNameRules.put(name, new Rule(String.format("name<%s>", name), action));
+      return this;
+    }
+
+    public Builder otherwise(@NonNull SteemRpcErrorAction action) {
+      fallbackAction = action;
+      return this;
+    }
+
+    public SteemRpcErrorClassifier build() {
+      return new SteemRpcErrorClassifier(this);
+    }
+
+    private CodeRulesBuilder codeRules(int code) {
+      return codeRules.computeIfAbsent(code, c -> new CodeRulesBuilder());
+    }
+  }
+
+  private static class CodeRulesBuilder {
+    private final Map<String, Rule> messageRules = new LinkedHashMap<>();
+    private final Map<String, Rule> dataNameRules = new LinkedHashMap<>();
+    private final List<PatternRule> patternRules = new ArrayList<>();
+    private Rule codeRule;
+
+    CodeRules build() {
+      List<PatternRule> copiedPatternRules = new ArrayList<>();
+      patternRules.forEach(rule -> copiedPatternRules.add(rule.copy()));
+      return new CodeRules(Maps.transformValues(messageRules, Rule::copy),
+          Maps.transformValues(dataNameRules, Rule::copy),
+          copiedPatternRules,
+          codeRule == null ? null : codeRule.copy());
+    }
+  }
+}
@@ -0,0 +1,216 @@
+package com.ryu1sakai.steem.client;
+
+import com.google.api.client.json.JsonFactory;
+import com.ryu1sakai.steem.client.model.SteemRpcRequest;
+import com.ryu1sakai.steem.client.model.SteemRpcResponse;
+import io.reactivex.Flowable;
+import io.reactivex.Scheduler;
+import io.reactivex.Single;
+import io.reactivex.processors.FlowableProcessor;
+import io.reactivex.processors.PublishProcessor;
+import io.reactivex.schedulers.Schedulers;
+import io.reactivex.subjects.SingleSubject;
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.annotation.Nullable;
+import lombok.NonNull;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.WebSocket;
+import okhttp3.WebSocketListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link SteemClient} which multiplexes calls over one WebSocket connection to a node.
+ *
+ * <p>Requests are sent without waiting for the responses of the previous ones, and responses are
+ * matched to the requests by id. The connection is opened on demand and opened again on the next
+ * call after it is lost, failing the calls in flight with an {@link IOException}.
+ *
+ * <p>Responses and notices are delivered on the given scheduler rather than on the thread reading
+ * the connection, so that their subscribers may call this client and block on the result.
+ */
+public class SteemWebSocketClient implements SteemClient, Closeable {
+  private static final Logger logger = LoggerFactory.getLogger(SteemWebSocketClient.class);
+
+  public static final Duration DEFAULT_CALL_TIMEOUT = Duration.ofSeconds(30);
+
+  private static final int NORMAL_CLOSURE = 1000;
+  private static final String NOTICE_METHOD = "notice";
+
+  private final OkHttpClient httpClient;
+  private final Request connectRequest;
+  private final JsonFactory jsonFactory;
+  private final SteemRpcErrorClassifier errorClassifier;
+  private final Duration callTimeout;
+  private final Scheduler scheduler;
+  private final AtomicLong ids = new AtomicLong();
+  private final AtomicReference<Connection> connection = new AtomicReference<>();
+
+  private volatile boolean appbaseApiSupported = true;
+
+  public SteemWebSocketClient(OkHttpClient httpClient, JsonFactory jsonFactory, String url) {
+    this(httpClient, jsonFactory, url, SteemRpcErrorClassifier.defaults(), DEFAULT_CALL_TIMEOUT);
+  }
+
+  /**
+   * @param url URL of the node, e.g. {@code wss://example.net}
+   */
+  public SteemWebSocketClient(OkHttpClient httpClient, JsonFactory jsonFactory, String url,
+                              SteemRpcErrorClassifier errorClassifier, Duration callTimeout) {
+    this(httpClient, jsonFactory, url, errorClassifier, callTimeout, Schedulers.io());
+  }
+
+  public SteemWebSocketClient(@NonNull OkHttpClient httpClient, @NonNull JsonFactory jsonFactory,
+                              @NonNull String url,
+                              @NonNull SteemRpcErrorClassifier errorClassifier,
+                              @NonNull Duration callTimeout, @NonNull Scheduler scheduler) {
+    this.httpClient = httpClient;
+    connectRequest = new Request.Builder().url(url).build();
+    this.jsonFactory = jsonFactory;
+    this.errorClassifier = errorClassifier;
+    this.callTimeout = callTimeout;
+    this.scheduler = scheduler;
+  }
+
+  @Override
+  public Single<SteemCallResult> call(SteemCallParameter requestParam) {
+    boolean usingAppbaseApi = appbaseApiSupported;
+    SteemRpcRequest request =
+        usingAppbaseApi ? requestParam.forAppbaseApi() : requestParam.forCondenserApi();
+    return send(request)
+        .flatMap(response -> {
+          SteemRpcResponse.Error error = response.getError();
+          if (error == null) {
+            return Single.just(SteemCallResult.of(response.getResult()));
+          }
+          SteemRpcErrorAction action = errorClassifier.classify(error);
+          if (usingAppbaseApi && action == SteemRpcErrorAction.DOWNGRADE_TO_CONDENSER) {
+            logger.info("Stop using Appbase API to {}", connectRequest.url());
+            appbaseApiSupported = false;
+            if (requestParam.isApplicableToCondenserApi()) {
+              return call(requestParam);
+            }
+          }
+          return Single.error(
+              SteemHttpClient.handleResponseError(error, action, connectRequest.url()));
+        });
+  }
+
+  /**
+   * Returns the parameters of notifications pushed by the node, e.g. {@code [callbackId, [...]]}
+   * of a {@code notice}. It fails when the connection is lost.
+   */
+  public Flowable<List<?>> notices() {
+    // The error of a lost connection must not overtake the notices before it
+    return Flowable.defer(() -> connect().notices).observeOn(scheduler, true);
+  }
+
+  @Override
+  public void close() {
+    Connection current = connection.getAndSet(null);
+    if (current != null) {
+      current.socket.close(NORMAL_CLOSURE, null);
+      current.fail(new IOException("Client closed"));
+    }
+  }
+
+  private Single<SteemRpcResponse> send(SteemRpcRequest request) {
+    return Single.defer(() -> {
+      long id = ids.incrementAndGet();
+      request.setId(id);
+      String text = jsonFactory.toString(request);
+      Connection current = connect();
+      SingleSubject<SteemRpcResponse> response = SingleSubject.create();
+      current.pending.put(id, response);
+      // Checked after put, so that either this sees the failure or the failure sees the entry
+      if (current.closed || !current.socket.send(text)) {
+        current.pending.remove(id);
+        return Single.error(new IOException(
+            String.format("Connection to <%s> already closed", connectRequest.url())));
+      }
+      return response
+          .timeout(callTimeout.toMillis(), TimeUnit.MILLISECONDS)
+          .doFinally(() -> current.pending.remove(id))
+          .observeOn(scheduler);
+    });
+  }
+
+  private Connection connect() {
+    while (true) {
+      Connection current = connection.get();
+      if (current != null) {
+        return current;
+      }
+      Connection created = new Connection();
+      // Messages sent before the handshake completes are queued by OkHttp
+      created.socket = httpClient.newWebSocket(connectRequest, created);
+      if (connection.compareAndSet(null, created)) {
+        return created;
+      }
+      created.socket.cancel();
+    }
+  }
+
+  private final class Connection extends WebSocketListener {
+    private final Map<Long, SingleSubject<SteemRpcResponse>> pending = new ConcurrentHashMap<>();
+    private final FlowableProcessor<List<?>> notices
+        = PublishProcessor.<List<?>>create().toSerialized();
+    private volatile WebSocket socket;
+    private volatile boolean closed;
+
+    @Override
+    public void onMessage(WebSocket webSocket, String text) {
+      try {
+        SteemRpcResponse response = jsonFactory.fromString(text, SteemRpcResponse.class);
+        if (response.getId() != null) {
+          SingleSubject<SteemRpcResponse> subject = pending.remove(response.getId());
+          if (subject != null) {
+            subject.onSuccess(response);
+          }
+          return;
+        }
+        Map<?, ?> message = jsonFactory.fromString(text, Map.class);
+        if (NOTICE_METHOD.equals(message.get("method")) && message.get("params") instanceof List) {
+          notices.onNext((List<?>) message.get("params"));
+        }
+      } catch (IOException | RuntimeException e) {
+        logger.warn("Malformed message from <{}> : {}", connectRequest.url(), text, e);
+      }
+    }
+
+    @Override
+    public void onClosing(WebSocket webSocket, int code, String reason) {
+      webSocket.close(NORMAL_CLOSURE, null);
+      onLost(new IOException(String.format("Closed by <%s> : %d %s",
+          connectRequest.url(), code, reason)));
+    }
+
+    @Override
+    public void onFailure(WebSocket webSocket, Throwable t, @Nullable Response response) {
+      logger.warn("Connection to <{}> failed", connectRequest.url(), t);
+      onLost(new IOException(String.format("Connection to <%s> failed", connectRequest.url()), t));
+    }
+
+    private void onLost(IOException error) {
+      connection.compareAndSet(this, null);
+      fail(error);
+    }
+
+    private void fail(IOException error) {
+      closed = true;
+      pending.values().forEach(subject -> subject.onError(error));
+      pending.clear();
+      notices.onError(error);
+    }
+  }
+}
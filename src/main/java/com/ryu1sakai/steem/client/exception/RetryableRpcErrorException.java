@@ -0,0 +1,11 @@
+package com.ryu1sakai.steem.client.exception;
+
+/**
+ * Recoverable error which is expected to go away by calling the same node again.
+ */
+public class RetryableRpcErrorException extends RecoverableRpcErrorException {
+
+  public RetryableRpcErrorException(String message) {
+    super(message);
+  }
+}
@@ -1,8 +1,38 @@
 package com.ryu1sakai.steem.client.exception;
 
+import com.ryu1sakai.steem.client.SteemRpcErrorAction;
+import javax.annotation.Nullable;
+
 public class SteemRpcErrorException extends RuntimeException {
+  @Nullable
+  private final Integer code;
+  @Nullable
+  private final SteemRpcErrorAction action;
 
   public SteemRpcErrorException(String message) {
+    this(message, null, null);
+  }
+
+  public SteemRpcErrorException(String message, @Nullable Integer code,
+                                @Nullable SteemRpcErrorAction action) {
     super(message);
+    this.code = code;
+    this.action = action;
+  }
+
+  /**
+   * Returns the code of the error returned by the node, or null if unknown.
+   */
+  @Nullable
+  public Integer getCode() {
+    return code;
+  }
+
+  /**
+   * Returns how the error was classified, or null if unknown.
+   */
+  @Nullable
+  public SteemRpcErrorAction getAction() {
+    return action;
   }
 }
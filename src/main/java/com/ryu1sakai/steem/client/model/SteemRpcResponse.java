@@ -31,6 +31,10 @@ public class SteemRpcResponse {
     private ErrorData data;
   }
 
+  /** Null in a notification, which is not a response to any request. */
+  @Key
+  private Long id;
+
   @Key
   private Object result;
 
@@ -0,0 +1,97 @@
+package com.ryu1sakai.steem.client.replay;
+
+import com.google.api.client.json.JsonFactory;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import javax.annotation.Nullable;
+
+/**
+ * Ids of JSON-RPC messages, which differ between a recorded request and the same one replayed.
+ */
+final class JsonRpcIds {
+  private static final String ID = "id";
+
+  private JsonRpcIds() {
+  }
+
+  /**
+   * Returns the body without the ids of the requests, or as it is if it is not JSON.
+   */
+  static String strip(JsonFactory jsonFactory, byte[] body) {
+    Object json = parse(jsonFactory, body);
+    if (json == null) {
+      return new String(body, StandardCharsets.UTF_8);
+    }
+    forEachMessage(json, message -> message.remove(ID));
+    try {
+      return jsonFactory.toString(json);
+    } catch (IOException e) {
+      return new String(body, StandardCharsets.UTF_8);
+    }
+  }
+
+  /**
+   * Returns the ids of the requests in the body in order, which is empty if it is not JSON.
+   */
+  static List<Object> of(JsonFactory jsonFactory, byte[] body) {
+    Object json = parse(jsonFactory, body);
+    if (json == null) {
+      return Collections.emptyList();
+    }
+    List<Object> ids = new ArrayList<>();
+    forEachMessage(json, message -> ids.add(message.get(ID)));
+    return ids;
+  }
+
+  /**
+   * Replaces the ids of the responses in the body, each of which is one of the recorded ids, with
+   * the live id at the same index.
+   */
+  static byte[] replace(JsonFactory jsonFactory, byte[] body, List<Object> recordedIds,
+                        List<Object> liveIds) {
+    Object json = recordedIds.equals(liveIds) || recordedIds.size() != liveIds.size() ? null
+        : parse(jsonFactory, body);
+    if (json == null) {
+      return body;
+    }
+    forEachMessage(json, message -> {
+      int index = recordedIds.indexOf(message.get(ID));
+      if (index >= 0) {
+        message.put(ID, liveIds.get(index));
+      }
+    });
+    try {
+      return jsonFactory.toByteArray(json);
+    } catch (IOException e) {
+      return body;
+    }
+  }
+
+  @Nullable
+  private static Object parse(JsonFactory jsonFactory, byte[] body) {
+    try {
+      return jsonFactory.createJsonParser(new String(body, StandardCharsets.UTF_8))
+          .parseAndClose(Object.class);
+    } catch (IOException | IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static void forEachMessage(Object json, Consumer<Map<String, Object>> action) {
+    if (json instanceof Map) {
+      action.accept((Map<String, Object>) json);
+    } else if (json instanceof List) {
+      for (Object element : (List<?>) json) {
+        if (element instanceof Map) {
+          action.accept((Map<String, Object>) element);
+        }
+      }
+    }
+  }
+}
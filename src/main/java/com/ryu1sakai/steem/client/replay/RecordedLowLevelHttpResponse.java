@@ -0,0 +1,76 @@
+package com.ryu1sakai.steem.client.replay;
+
+import com.google.api.client.http.LowLevelHttpResponse;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+
+/**
+ * Response served from a {@link SteemHttpRecord}, whose body is already decoded.
+ */
+final class RecordedLowLevelHttpResponse extends LowLevelHttpResponse {
+  private final SteemHttpRecord record;
+  private final byte[] body;
+
+  RecordedLowLevelHttpResponse(SteemHttpRecord record) {
+    this(record, record.getResponseBody());
+  }
+
+  /**
+   * Creates a response of the record with another body, such as one with rewritten ids.
+   */
+  RecordedLowLevelHttpResponse(SteemHttpRecord record, byte[] body) {
+    this.record = record;
+    this.body = body;
+  }
+
+  @Override
+  public InputStream getContent() {
+    return new ByteArrayInputStream(body);
+  }
+
+  @Override
+  public String getContentEncoding() {
+    return null;
+  }
+
+  @Override
+  public long getContentLength() {
+    return body.length;
+  }
+
+  @Override
+  public String getContentType() {
+    return record.getContentType();
+  }
+
+  @Override
+  public String getStatusLine() {
+    return record.getReasonPhrase() == null ? null
+        : String.format("HTTP/1.1 %d %s", record.getStatusCode(), record.getReasonPhrase());
+  }
+
+  @Override
+  public int getStatusCode() {
+    return record.getStatusCode();
+  }
+
+  @Override
+  public String getReasonPhrase() {
+    return record.getReasonPhrase();
+  }
+
+  @Override
+  public int getHeaderCount() {
+    return 0;
+  }
+
+  @Override
+  public String getHeaderName(int index) {
+    throw new IndexOutOfBoundsException(String.valueOf(index));
+  }
+
+  @Override
+  public String getHeaderValue(int index) {
+    throw new IndexOutOfBoundsException(String.valueOf(index));
+  }
+}
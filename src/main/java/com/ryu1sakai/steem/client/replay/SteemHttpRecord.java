@@ -0,0 +1,34 @@
+package com.ryu1sakai.steem.client.replay;
+
+import com.google.api.client.json.JsonFactory;
+import javax.annotation.Nullable;
+import lombok.Value;
+
+/**
+ * Pair of an HTTP request and its response, with the time taken to receive the response.
+ */
+@Value(staticConstructor = "of")
+public class SteemHttpRecord {
+  private String method;
+  private String url;
+  private byte[] requestBody;
+  private long latencyNanos;
+  private int statusCode;
+  @Nullable
+  private String reasonPhrase;
+  @Nullable
+  private String contentType;
+  private byte[] responseBody;
+
+  String getKey(JsonFactory jsonFactory) {
+    return keyOf(jsonFactory, method, url, requestBody);
+  }
+
+  /**
+   * Returns the key to match a request with, which ignores the JSON-RPC ids since a client
+   * numbers its requests anew in each run.
+   */
+  static String keyOf(JsonFactory jsonFactory, String method, String url, byte[] requestBody) {
+    return method + ' ' + url + ' ' + JsonRpcIds.strip(jsonFactory, requestBody);
+  }
+}
@@ -0,0 +1,106 @@
+package com.ryu1sakai.steem.client.replay;
+
+import com.google.common.collect.ImmutableList;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import javax.annotation.Nullable;
+
+/**
+ * Gzip-compressed sequence of {@link SteemHttpRecord}s.
+ *
+ * <p>Each record is written as the method, URL, request body, latency in nanoseconds, status
+ * code, reason phrase, content type and response body, with strings in modified UTF-8 and byte
+ * arrays prefixed with their lengths.
+ */
+final class SteemHttpRecordFile implements Closeable {
+  private static final int MAGIC = 0x53485250; // "SHRP"
+  private static final int VERSION = 1;
+
+  private final DataOutputStream output;
+
+  private SteemHttpRecordFile(DataOutputStream output) {
+    this.output = output;
+  }
+
+  static SteemHttpRecordFile create(Path path) throws IOException {
+    DataOutputStream output = new DataOutputStream(new BufferedOutputStream(
+        new GZIPOutputStream(Files.newOutputStream(path), true)));
+    output.writeInt(MAGIC);
+    output.writeInt(VERSION);
+    return new SteemHttpRecordFile(output);
+  }
+
+  static List<SteemHttpRecord> read(Path path) throws IOException {
+    try (DataInputStream input = new DataInputStream(new BufferedInputStream(
+        new GZIPInputStream(Files.newInputStream(path))))) {
+      if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+        throw new IOException(String.format("Not a record file : %s", path));
+      }
+      ImmutableList.Builder<SteemHttpRecord> records = ImmutableList.builder();
+      while (true) {
+        String method;
+        try {
+          method = input.readUTF();
+        } catch (EOFException e) {
+          return records.build();
+        }
+        records.add(SteemHttpRecord.of(method, input.readUTF(), readBytes(input),
+            input.readLong(), input.readInt(), readNullableUtf(input), readNullableUtf(input),
+            readBytes(input)));
+      }
+    }
+  }
+
+  /**
+   * Appends a record, flushing it so that a recording interrupted midway is still readable.
+   */
+  synchronized void write(SteemHttpRecord record) throws IOException {
+    output.writeUTF(record.getMethod());
+    output.writeUTF(record.getUrl());
+    writeBytes(record.getRequestBody());
+    output.writeLong(record.getLatencyNanos());
+    output.writeInt(record.getStatusCode());
+    writeNullableUtf(record.getReasonPhrase());
+    writeNullableUtf(record.getContentType());
+    writeBytes(record.getResponseBody());
+    output.flush();
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    output.close();
+  }
+
+  private void writeBytes(byte[] bytes) throws IOException {
+    output.writeInt(bytes.length);
+    output.write(bytes);
+  }
+
+  private void writeNullableUtf(@Nullable String value) throws IOException {
+    output.writeBoolean(value != null);
+    if (value != null) {
+      output.writeUTF(value);
+    }
+  }
+
+  private static byte[] readBytes(DataInputStream input) throws IOException {
+    byte[] bytes = new byte[input.readInt()];
+    input.readFully(bytes);
+    return bytes;
+  }
+
+  @Nullable
+  private static String readNullableUtf(DataInputStream input) throws IOException {
+    return input.readBoolean() ? input.readUTF() : null;
+  }
+}
@@ -0,0 +1,89 @@
+package com.ryu1sakai.steem.client.replay;
+
+import com.google.api.client.http.ByteArrayContent;
+import com.google.api.client.http.GenericUrl;
+import com.google.api.client.http.HttpRequest;
+import com.google.api.client.http.HttpRequestFactory;
+import com.google.api.client.http.HttpResponse;
+import com.google.api.client.http.HttpTransport;
+import com.google.api.client.http.LowLevelHttpRequest;
+import com.google.api.client.http.LowLevelHttpResponse;
+import com.google.common.io.ByteStreams;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import lombok.NonNull;
+
+/**
+ * {@link HttpTransport} which passes requests to another transport and records each pair of a
+ * request and its response into a file, to be served by {@link SteemReplayHttpTransport} later.
+ */
+public class SteemRecordingHttpTransport extends HttpTransport implements Closeable {
+  private final HttpTransport delegate;
+  private final HttpRequestFactory delegateRequestFactory;
+  private final SteemHttpRecordFile file;
+
+  public SteemRecordingHttpTransport(@NonNull HttpTransport delegate, @NonNull Path path)
+      throws IOException {
+    this.delegate = delegate;
+    delegateRequestFactory = delegate.createRequestFactory();
+    file = SteemHttpRecordFile.create(path);
+  }
+
+  @Override
+  public boolean supportsMethod(String method) throws IOException {
+    return delegate.supportsMethod(method);
+  }
+
+  @Override
+  protected LowLevelHttpRequest buildRequest(String method, String url) {
+    return new LowLevelHttpRequest() {
+      @Override
+      public void addHeader(String name, String value) {
+        // The delegate adds its own headers
+      }
+
+      @Override
+      public LowLevelHttpResponse execute() throws IOException {
+        byte[] requestBody = new byte[0];
+        if (getStreamingContent() != null) {
+          ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+          getStreamingContent().writeTo(buffer);
+          requestBody = buffer.toByteArray();
+        }
+        HttpRequest request = delegateRequestFactory.buildRequest(method, new GenericUrl(url),
+            getStreamingContent() == null ? null
+                : new ByteArrayContent(getContentType(), requestBody));
+        request.setThrowExceptionOnExecuteError(false);
+        request.setNumberOfRetries(0);
+
+        long startNanos = System.nanoTime();
+        HttpResponse response = request.execute();
+        byte[] responseBody;
+        try (InputStream content = response.getContent()) {
+          responseBody = content == null ? new byte[0] : ByteStreams.toByteArray(content);
+        } finally {
+          response.disconnect();
+        }
+        SteemHttpRecord record = SteemHttpRecord.of(method, url, requestBody,
+            System.nanoTime() - startNanos, response.getStatusCode(),
+            response.getStatusMessage(), response.getContentType(), responseBody);
+        file.write(record);
+        return new RecordedLowLevelHttpResponse(record);
+      }
+    };
+  }
+
+  @Override
+  public void shutdown() throws IOException {
+    close();
+    delegate.shutdown();
+  }
+
+  @Override
+  public void close() throws IOException {
+    file.close();
+  }
+}
@@ -0,0 +1,101 @@
+package com.ryu1sakai.steem.client.replay;
+
+import com.google.api.client.http.HttpTransport;
+import com.google.api.client.http.LowLevelHttpRequest;
+import com.google.api.client.http.LowLevelHttpResponse;
+import com.google.api.client.json.JsonFactory;
+import com.google.common.collect.ImmutableList;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.NonNull;
+
+/**
+ * {@link HttpTransport} which serves responses recorded by {@link SteemRecordingHttpTransport}
+ * without any network access.
+ *
+ * <p>Requests are matched by the method, URL and body except the JSON-RPC ids, and the ids of a
+ * response are rewritten to the ones of the request. Responses to the same request are served
+ * in the recorded order, and from the first one again after all of them are served. A request
+ * never recorded fails with an {@link IOException}, which {@code SteemHttpClient} takes as a
+ * node failure.
+ */
+public class SteemReplayHttpTransport extends HttpTransport {
+
+  public enum Mode {
+    /** Serves responses immediately. */
+    FAST,
+    /** Delays responses by the recorded latencies. */
+    RECORDED_LATENCY,
+  }
+
+  private final Map<String, List<SteemHttpRecord>> records;
+  private final Map<String, AtomicInteger> cursors;
+  private final Mode mode;
+  private final JsonFactory jsonFactory;
+
+  public SteemReplayHttpTransport(@NonNull List<SteemHttpRecord> records, @NonNull Mode mode,
+                                  @NonNull JsonFactory jsonFactory) {
+    Map<String, ImmutableList.Builder<SteemHttpRecord>> builders = new LinkedHashMap<>();
+    records.forEach(record -> builders
+        .computeIfAbsent(record.getKey(jsonFactory), key -> ImmutableList.builder())
+        .add(record));
+    Map<String, List<SteemHttpRecord>> recordsByKey = new LinkedHashMap<>();
+    Map<String, AtomicInteger> cursors = new LinkedHashMap<>();
+    builders.forEach((key, builder) -> {
+      recordsByKey.put(key, builder.build());
+      cursors.put(key, new AtomicInteger());
+    });
+    this.records = recordsByKey;
+    this.cursors = cursors;
+    this.mode = mode;
+    this.jsonFactory = jsonFactory;
+  }
+
+  public static SteemReplayHttpTransport load(Path path, Mode mode, JsonFactory jsonFactory)
+      throws IOException {
+    return new SteemReplayHttpTransport(SteemHttpRecordFile.read(path), mode, jsonFactory);
+  }
+
+  @Override
+  protected LowLevelHttpRequest buildRequest(String method, String url) {
+    return new LowLevelHttpRequest() {
+      @Override
+      public void addHeader(String name, String value) {
+      }
+
+      @Override
+      public LowLevelHttpResponse execute() throws IOException {
+        ByteArrayOutputStream requestBody = new ByteArrayOutputStream();
+        if (getStreamingContent() != null) {
+          getStreamingContent().writeTo(requestBody);
+        }
+        byte[] body = requestBody.toByteArray();
+        String key = SteemHttpRecord.keyOf(jsonFactory, method, url, body);
+        List<SteemHttpRecord> candidates = records.get(key);
+        if (candidates == null) {
+          throw new IOException(String.format("No recorded response : %s", key));
+        }
+        SteemHttpRecord record = candidates
+            .get(Math.floorMod(cursors.get(key).getAndIncrement(), candidates.size()));
+        if (mode == Mode.RECORDED_LATENCY) {
+          try {
+            TimeUnit.NANOSECONDS.sleep(record.getLatencyNanos());
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+          }
+        }
+        return new RecordedLowLevelHttpResponse(record, JsonRpcIds.replace(jsonFactory,
+            record.getResponseBody(), JsonRpcIds.of(jsonFactory, record.getRequestBody()),
+            JsonRpcIds.of(jsonFactory, body)));
+      }
+    };
+  }
+}
@@ -0,0 +1,65 @@
+package com.ryu1sakai.steem.client.trace;
+
+import com.google.common.collect.ImmutableMap;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+final class RecordingSpan implements SteemSpan {
+  private final SteemTracer tracer;
+  private final long traceId;
+  private final long spanId;
+  private final long parentSpanId;
+  private final String name;
+  private final Instant start = Instant.now();
+  private final long startNanos = System.nanoTime();
+  private final Map<String, Object> tags = new LinkedHashMap<>();
+  private boolean ended;
+
+  RecordingSpan(SteemTracer tracer, long traceId, long spanId, long parentSpanId, String name) {
+    this.tracer = tracer;
+    this.traceId = traceId;
+    this.spanId = spanId;
+    this.parentSpanId = parentSpanId;
+    this.name = name;
+  }
+
+  @Override
+  public boolean isSampled() {
+    return true;
+  }
+
+  @Override
+  public SteemSpan child(String name) {
+    return new RecordingSpan(tracer, traceId, tracer.nextId(), spanId, name);
+  }
+
+  @Override
+  public synchronized SteemSpan tag(String key, @Nullable Object value) {
+    if (value != null && !ended) {
+      tags.put(key, value);
+    }
+    return this;
+  }
+
+  @Override
+  public void end() {
+    end(null);
+  }
+
+  @Override
+  public void end(@Nullable Throwable error) {
+    SteemSpanRecord record;
+    synchronized (this) {
+      if (ended) {
+        return;
+      }
+      ended = true;
+      record = SteemSpanRecord.of(traceId, spanId, parentSpanId, name, start,
+          Duration.ofNanos(System.nanoTime() - startNanos), ImmutableMap.copyOf(tags), error);
+    }
+    tracer.export(record);
+  }
+}
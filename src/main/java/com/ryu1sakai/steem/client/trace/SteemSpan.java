@@ -0,0 +1,52 @@
+package com.ryu1sakai.steem.client.trace;
+
+import javax.annotation.Nullable;
+
+/**
+ * Timed phase of a call. Spans of calls not sampled are {@link #NOOP}, which costs nothing.
+ */
+public interface SteemSpan {
+  SteemSpan NOOP = new SteemSpan() {
+    @Override
+    public boolean isSampled() {
+      return false;
+    }
+
+    @Override
+    public SteemSpan child(String name) {
+      return this;
+    }
+
+    @Override
+    public SteemSpan tag(String key, @Nullable Object value) {
+      return this;
+    }
+
+    @Override
+    public void end() {
+    }
+
+    @Override
+    public void end(Throwable error) {
+    }
+  };
+
+  /**
+   * Returns whether the span is recorded, to skip computing costly tags otherwise.
+   */
+  boolean isSampled();
+
+  SteemSpan child(String name);
+
+  /**
+   * Adds a tag, or does nothing if the value is null.
+   */
+  SteemSpan tag(String key, @Nullable Object value);
+
+  /**
+   * Ends the span and exports it. Only the first end of a span takes effect.
+   */
+  void end();
+
+  void end(Throwable error);
+}
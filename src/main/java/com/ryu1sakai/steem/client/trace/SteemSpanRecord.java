@@ -0,0 +1,24 @@
+package com.ryu1sakai.steem.client.trace;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import javax.annotation.Nullable;
+import lombok.Value;
+
+/**
+ * Ended span exported to a {@link SteemTraceSink}.
+ */
+@Value(staticConstructor = "of")
+public class SteemSpanRecord {
+  private long traceId;
+  private long spanId;
+  /** Zero for the root span of a trace. */
+  private long parentSpanId;
+  private String name;
+  private Instant start;
+  private Duration duration;
+  private Map<String, Object> tags;
+  @Nullable
+  private Throwable error;
+}
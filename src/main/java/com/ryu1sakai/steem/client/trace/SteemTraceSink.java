@@ -0,0 +1,10 @@
+package com.ryu1sakai.steem.client.trace;
+
+/**
+ * Destination of ended spans. It is called on the thread ending the span, so it must be fast and
+ * thread safe.
+ */
+@FunctionalInterface
+public interface SteemTraceSink {
+  void export(SteemSpanRecord span);
+}
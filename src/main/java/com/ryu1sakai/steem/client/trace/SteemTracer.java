@@ -0,0 +1,61 @@
+package com.ryu1sakai.steem.client.trace;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Starts traces of a sampled fraction of calls.
+ */
+public class SteemTracer {
+  private static final Logger logger = LoggerFactory.getLogger(SteemTracer.class);
+
+  private static final SteemTracer DISABLED = new SteemTracer(0, span -> { });
+
+  private final double samplingRate;
+  private final SteemTraceSink sink;
+  private final AtomicLong ids = new AtomicLong();
+
+  /**
+   * @param samplingRate fraction of traces to record, from 0 for none to 1 for all
+   */
+  public SteemTracer(double samplingRate, @NonNull SteemTraceSink sink) {
+    if (samplingRate < 0 || samplingRate > 1) {
+      throw new IllegalArgumentException(
+          String.format("Sampling rate out of range : %s", samplingRate));
+    }
+    this.samplingRate = samplingRate;
+    this.sink = sink;
+  }
+
+  public static SteemTracer disabled() {
+    return DISABLED;
+  }
+
+  /**
+   * Starts a root span, or returns {@link SteemSpan#NOOP} if the trace is not sampled.
+   */
+  public SteemSpan start(String name) {
+    if (samplingRate == 0
+        || samplingRate < 1 && ThreadLocalRandom.current().nextDouble() >= samplingRate) {
+      return SteemSpan.NOOP;
+    }
+    long traceId = nextId();
+    return new RecordingSpan(this, traceId, traceId, 0, name);
+  }
+
+  long nextId() {
+    return ids.incrementAndGet();
+  }
+
+  void export(SteemSpanRecord span) {
+    // A broken sink must never fail the traced call
+    try {
+      sink.export(span);
+    } catch (RuntimeException e) {
+      logger.warn("Sink failed on {}", span, e);
+    }
+  }
+}
@@ -0,0 +1,71 @@
+package com.ryu1sakai.steem.crypto;
+
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import javax.crypto.Mac;
+
+/**
+ * Hash functions backed by per-thread digest instances, so that hot paths such as signing do not
+ * look up and allocate a {@link MessageDigest} for every hash.
+ */
+public final class Hashes {
+  private Hashes() {}
+
+  private static final ThreadLocal<MessageDigest> SHA256
+      = ThreadLocal.withInitial(() -> newDigest("SHA-256"));
+  private static final ThreadLocal<MessageDigest> SHA512
+      = ThreadLocal.withInitial(() -> newDigest("SHA-512"));
+  private static final ThreadLocal<Mac> HMAC_SHA256
+      = ThreadLocal.withInitial(() -> newMac("HmacSHA256"));
+
+  public static byte[] sha256(byte[] input) {
+    return sha256(input, 0, input.length);
+  }
+
+  public static byte[] sha256(byte[] input, int offset, int length) {
+    MessageDigest digest = SHA256.get();
+    digest.update(input, offset, length);
+    return digest.digest();
+  }
+
+  public static byte[] sha256(byte[] prefix, byte[] input, int offset, int length) {
+    MessageDigest digest = SHA256.get();
+    digest.update(prefix);
+    digest.update(input, offset, length);
+    return digest.digest();
+  }
+
+  public static byte[] doubleSha256(byte[] input, int offset, int length) {
+    MessageDigest digest = SHA256.get();
+    digest.update(input, offset, length);
+    return digest.digest(digest.digest());
+  }
+
+  public static byte[] sha512(byte[] input) {
+    return SHA512.get().digest(input);
+  }
+
+  public static byte[] ripemd160(byte[] input) {
+    return Ripemd160.digest(input);
+  }
+
+  static Mac hmacSha256() {
+    return HMAC_SHA256.get();
+  }
+
+  private static MessageDigest newDigest(String algorithm) {
+    try {
+      return MessageDigest.getInstance(algorithm);
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static Mac newMac(String algorithm) {
+    try {
+      return Mac.getInstance(algorithm);
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -0,0 +1,219 @@
+package com.ryu1sakai.steem.crypto;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * Arithmetic on the secp256k1 curve.
+ *
+ * <p>Points are handled in Jacobian coordinates and only converted to affine ones at the end of a
+ * multiplication. Multiplications by the generator use a table of all the 4-bit windows of the
+ * generator computed once, so that signing costs 64 point additions and no doubling.
+ * Multiplications by other points use a {@link PointTable} which callers keep per key.
+ *
+ * <p>The arithmetic is not constant-time.
+ */
+final class Secp256k1 {
+  private Secp256k1() {}
+
+  static final BigInteger P = new BigInteger(
+      "FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFEFFFFFC2F", 16);
+  static final BigInteger N = new BigInteger(
+      "FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFEBAAEDCE6AF48A03BBFD25E8CD0364141", 16);
+  static final BigInteger HALF_N = N.shiftRight(1);
+  static final AffinePoint G = new AffinePoint(
+      new BigInteger("79BE667EF9DCBBAC55A06295CE870B07029BFCDB2DCE28D959F2815B16F81798", 16),
+      new BigInteger("483ADA7726A3C4655DA4FBFC0E1108A8FD17B448A68554199C47D08FFB10D4B8", 16));
+
+  private static final BigInteger B = BigInteger.valueOf(7);
+  private static final BigInteger SQRT_EXPONENT = P.add(BigInteger.ONE).shiftRight(2);
+
+  private static final int WINDOW_BITS = 4;
+  private static final int WINDOW_SIZE = 1 << WINDOW_BITS;
+  private static final int WINDOW_COUNT = 256 / WINDOW_BITS;
+
+  // GENERATOR_TABLE[i][j] = j * 16^i * G
+  private static final AffinePoint[][] GENERATOR_TABLE = generatorTable();
+
+  static AffinePoint multiplyGenerator(BigInteger k) {
+    JacobianPoint result = JacobianPoint.INFINITY;
+    for (int i = 0; i < WINDOW_COUNT; i++) {
+      int window = window(k, i);
+      if (window != 0) {
+        result = result.add(GENERATOR_TABLE[i][window]);
+      }
+    }
+    return result.toAffine();
+  }
+
+  static AffinePoint multiply(PointTable table, BigInteger k) {
+    JacobianPoint result = JacobianPoint.INFINITY;
+    for (int i = WINDOW_COUNT - 1; i >= 0; i--) {
+      for (int j = 0; j < WINDOW_BITS; j++) {
+        result = result.twice();
+      }
+      int window = window(k, i);
+      if (window != 0) {
+        result = result.add(table.multiples[window]);
+      }
+    }
+    return result.toAffine();
+  }
+
+  static AffinePoint add(AffinePoint a, AffinePoint b) {
+    return JacobianPoint.of(a).add(b).toAffine();
+  }
+
+  static AffinePoint decompress(byte[] encoded) {
+    if (encoded.length != 33 || (encoded[0] != 0x02 && encoded[0] != 0x03)) {
+      throw new IllegalArgumentException("Not a compressed point");
+    }
+    BigInteger x = new BigInteger(1, Arrays.copyOfRange(encoded, 1, 33));
+    if (x.compareTo(P) >= 0) {
+      throw new IllegalArgumentException("X coordinate out of range");
+    }
+    BigInteger ySquare = x.pow(3).add(B).mod(P);
+    BigInteger y = ySquare.modPow(SQRT_EXPONENT, P);
+    if (!y.multiply(y).mod(P).equals(ySquare)) {
+      throw new IllegalArgumentException("Point not on the curve");
+    }
+    if (y.testBit(0) != (encoded[0] == 0x03)) {
+      y = P.subtract(y);
+    }
+    return new AffinePoint(x, y);
+  }
+
+  static byte[] toBytes32(BigInteger value) {
+    byte[] bytes = value.toByteArray();
+    byte[] result = new byte[32];
+    int length = Math.min(bytes.length, 32);
+    System.arraycopy(bytes, bytes.length - length, result, 32 - length, length);
+    return result;
+  }
+
+  private static int window(BigInteger k, int index) {
+    int result = 0;
+    int offset = index * WINDOW_BITS;
+    for (int bit = WINDOW_BITS - 1; bit >= 0; bit--) {
+      result = (result << 1) | (k.testBit(offset + bit) ? 1 : 0);
+    }
+    return result;
+  }
+
+  private static AffinePoint[][] generatorTable() {
+    AffinePoint[][] table = new AffinePoint[WINDOW_COUNT][];
+    JacobianPoint base = JacobianPoint.of(G);
+    for (int i = 0; i < WINDOW_COUNT; i++) {
+      AffinePoint affineBase = base.toAffine();
+      table[i] = new PointTable(affineBase).multiples;
+      base = JacobianPoint.of(table[i][WINDOW_SIZE - 1]).add(affineBase);
+    }
+    return table;
+  }
+
+  static final class AffinePoint {
+    final BigInteger x;
+    final BigInteger y;
+
+    AffinePoint(BigInteger x, BigInteger y) {
+      this.x = x;
+      this.y = y;
+    }
+
+    byte[] toCompressed() {
+      byte[] result = new byte[33];
+      result[0] = (byte) (y.testBit(0) ? 0x03 : 0x02);
+      System.arraycopy(toBytes32(x), 0, result, 1, 32);
+      return result;
+    }
+  }
+
+  /**
+   * Multiples 1 to 15 of a point, which make a multiplication by the point cost 64 additions.
+   */
+  static final class PointTable {
+    private final AffinePoint[] multiples = new AffinePoint[WINDOW_SIZE];
+
+    PointTable(AffinePoint point) {
+      JacobianPoint current = JacobianPoint.of(point);
+      multiples[1] = point;
+      for (int i = 2; i < WINDOW_SIZE; i++) {
+        current = current.add(point);
+        multiples[i] = current.toAffine();
+      }
+    }
+  }
+
+  private static final class JacobianPoint {
+    static final JacobianPoint INFINITY
+        = new JacobianPoint(BigInteger.ONE, BigInteger.ONE, BigInteger.ZERO);
+
+    final BigInteger x;
+    final BigInteger y;
+    final BigInteger z;
+
+    JacobianPoint(BigInteger x, BigInteger y, BigInteger z) {
+      this.x = x;
+      this.y = y;
+      this.z = z;
+    }
+
+    static JacobianPoint of(AffinePoint point) {
+      return new JacobianPoint(point.x, point.y, BigInteger.ONE);
+    }
+
+    boolean isInfinity() {
+      return z.signum() == 0;
+    }
+
+    JacobianPoint twice() {
+      if (isInfinity() || y.signum() == 0) {
+        return INFINITY;
+      }
+      BigInteger a = x.multiply(x).mod(P);
+      BigInteger b = y.multiply(y).mod(P);
+      BigInteger c = b.multiply(b).mod(P);
+      BigInteger xb = x.add(b);
+      BigInteger d = xb.multiply(xb).subtract(a).subtract(c).shiftLeft(1).mod(P);
+      BigInteger e = a.multiply(BigInteger.valueOf(3)).mod(P);
+      BigInteger f = e.multiply(e).mod(P);
+      BigInteger x3 = f.subtract(d.shiftLeft(1)).mod(P);
+      BigInteger y3 = e.multiply(d.subtract(x3)).subtract(c.shiftLeft(3)).mod(P);
+      BigInteger z3 = y.multiply(z).shiftLeft(1).mod(P);
+      return new JacobianPoint(x3, y3, z3);
+    }
+
+    JacobianPoint add(AffinePoint other) {
+      if (isInfinity()) {
+        return of(other);
+      }
+      // Mixed addition, where the other point has z = 1
+      BigInteger zz = z.multiply(z).mod(P);
+      BigInteger u2 = other.x.multiply(zz).mod(P);
+      BigInteger s2 = other.y.multiply(z).multiply(zz).mod(P);
+      BigInteger h = u2.subtract(x).mod(P);
+      BigInteger r = s2.subtract(y).mod(P);
+      if (h.signum() == 0) {
+        return r.signum() == 0 ? twice() : INFINITY;
+      }
+      BigInteger hh = h.multiply(h).mod(P);
+      BigInteger hhh = h.multiply(hh).mod(P);
+      BigInteger v = x.multiply(hh).mod(P);
+      BigInteger x3 = r.multiply(r).subtract(hhh).subtract(v.shiftLeft(1)).mod(P);
+      BigInteger y3 = r.multiply(v.subtract(x3)).subtract(y.multiply(hhh)).mod(P);
+      BigInteger z3 = z.multiply(h).mod(P);
+      return new JacobianPoint(x3, y3, z3);
+    }
+
+    AffinePoint toAffine() {
+      if (isInfinity()) {
+        throw new ArithmeticException("Point at infinity");
+      }
+      BigInteger zInverse = z.modInverse(P);
+      BigInteger zInverse2 = zInverse.multiply(zInverse).mod(P);
+      BigInteger affineX = x.multiply(zInverse2).mod(P);
+      BigInteger affineY = y.multiply(zInverse2).multiply(zInverse).mod(P);
+      return new AffinePoint(affineX, affineY);
+    }
+  }
+}
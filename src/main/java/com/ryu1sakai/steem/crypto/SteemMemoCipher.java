@@ -0,0 +1,150 @@
+package com.ryu1sakai.steem.crypto;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import lombok.NonNull;
+
+/**
+ * Encryption of memos compatible with steem-js and steemd {@code memo_data}.
+ *
+ * <p>An encrypted memo is '#' followed by Base58 of the sender's public key, the recipient's
+ * public key, a 64-bit nonce, a 32-bit check and the AES-256-CBC encrypted message.
+ */
+public final class SteemMemoCipher {
+  private SteemMemoCipher() {}
+
+  public static final char ENCRYPTED_MEMO_PREFIX = '#';
+
+  private static final AtomicInteger NONCE_ENTROPY = new AtomicInteger();
+  private static final ThreadLocal<Cipher> CIPHER
+      = ThreadLocal.withInitial(SteemMemoCipher::newCipher);
+
+  public static String encrypt(@NonNull SteemPrivateKey from, @NonNull SteemPublicKey to,
+                               @NonNull String message) {
+    return encrypt(from, to, uniqueNonce(), message);
+  }
+
+  public static String encrypt(@NonNull SteemPrivateKey from, @NonNull SteemPublicKey to,
+                               long nonce, @NonNull String message) {
+    byte[] encryptionKey = encryptionKey(from, to, nonce);
+    byte[] plain = toVarString(message);
+    byte[] encrypted = crypt(Cipher.ENCRYPT_MODE, encryptionKey, plain);
+
+    byte[] lengthPrefix = varint(encrypted.length);
+    ByteBuffer buffer = ByteBuffer
+        .allocate(33 + 33 + 8 + 4 + lengthPrefix.length + encrypted.length)
+        .order(ByteOrder.LITTLE_ENDIAN);
+    buffer.put(from.getPublicKey().toCompressed())
+        .put(to.toCompressed())
+        .putLong(nonce)
+        .putInt(check(encryptionKey))
+        .put(lengthPrefix)
+        .put(encrypted);
+    return ENCRYPTED_MEMO_PREFIX + Base58.encode(buffer.array());
+  }
+
+  /**
+   * Decrypts an encrypted memo with the private key of either the sender or the recipient.
+   */
+  public static String decrypt(@NonNull SteemPrivateKey key, @NonNull String memo) {
+    if (memo.isEmpty() || memo.charAt(0) != ENCRYPTED_MEMO_PREFIX) {
+      throw new IllegalArgumentException("Not an encrypted memo");
+    }
+    ByteBuffer buffer = ByteBuffer.wrap(Base58.decode(memo.substring(1)))
+        .order(ByteOrder.LITTLE_ENDIAN);
+    byte[] fromBytes = new byte[33];
+    byte[] toBytes = new byte[33];
+    buffer.get(fromBytes).get(toBytes);
+    long nonce = buffer.getLong();
+    int check = buffer.getInt();
+    byte[] encrypted = new byte[readVarint(buffer)];
+    buffer.get(encrypted);
+
+    SteemPublicKey from = SteemPublicKey.fromCompressed(fromBytes);
+    SteemPublicKey to = SteemPublicKey.fromCompressed(toBytes);
+    SteemPublicKey otherSide = key.getPublicKey().equals(from) ? to : from;
+    byte[] encryptionKey = encryptionKey(key, otherSide, nonce);
+    if (check(encryptionKey) != check) {
+      throw new IllegalArgumentException("Memo check mismatch; wrong key?");
+    }
+    ByteBuffer plain = ByteBuffer.wrap(crypt(Cipher.DECRYPT_MODE, encryptionKey, encrypted));
+    byte[] message = new byte[readVarint(plain)];
+    plain.get(message);
+    return new String(message, StandardCharsets.UTF_8);
+  }
+
+  private static byte[] encryptionKey(SteemPrivateKey privateKey, SteemPublicKey publicKey,
+                                      long nonce) {
+    byte[] sharedSecret = privateKey.getSharedSecret(publicKey);
+    ByteBuffer buffer = ByteBuffer.allocate(8 + sharedSecret.length)
+        .order(ByteOrder.LITTLE_ENDIAN)
+        .putLong(nonce)
+        .put(sharedSecret);
+    return Hashes.sha512(buffer.array());
+  }
+
+  private static int check(byte[] encryptionKey) {
+    return ByteBuffer.wrap(Hashes.sha256(encryptionKey)).order(ByteOrder.LITTLE_ENDIAN).getInt();
+  }
+
+  private static byte[] crypt(int mode, byte[] encryptionKey, byte[] input) {
+    Cipher cipher = CIPHER.get();
+    try {
+      cipher.init(mode, new SecretKeySpec(Arrays.copyOfRange(encryptionKey, 0, 32), "AES"),
+          new IvParameterSpec(Arrays.copyOfRange(encryptionKey, 32, 48)));
+      return cipher.doFinal(input);
+    } catch (GeneralSecurityException e) {
+      throw new IllegalArgumentException("Failed to crypt memo", e);
+    }
+  }
+
+  private static long uniqueNonce() {
+    return System.currentTimeMillis() << 16 | (NONCE_ENTROPY.incrementAndGet() & 0xFFFF);
+  }
+
+  private static byte[] toVarString(String message) {
+    byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+    byte[] lengthPrefix = varint(bytes.length);
+    byte[] result = Arrays.copyOf(lengthPrefix, lengthPrefix.length + bytes.length);
+    System.arraycopy(bytes, 0, result, lengthPrefix.length, bytes.length);
+    return result;
+  }
+
+  private static byte[] varint(int value) {
+    ByteArrayOutputStream output = new ByteArrayOutputStream(5);
+    while ((value & ~0x7F) != 0) {
+      output.write((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    output.write(value);
+    return output.toByteArray();
+  }
+
+  private static int readVarint(ByteBuffer buffer) {
+    int result = 0;
+    for (int shift = 0; shift < 35; shift += 7) {
+      int b = buffer.get() & 0xFF;
+      result |= (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return result;
+      }
+    }
+    throw new IllegalArgumentException("Malformed varint");
+  }
+
+  private static Cipher newCipher() {
+    try {
+      return Cipher.getInstance("AES/CBC/PKCS5Padding");
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
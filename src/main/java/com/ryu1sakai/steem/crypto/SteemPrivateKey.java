@@ -0,0 +1,185 @@
+package com.ryu1sakai.steem.crypto;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import lombok.NonNull;
+
+public final class SteemPrivateKey {
+  private static final byte WIF_VERSION = (byte) 0x80;
+  private static final int CHECKSUM_LENGTH = 4;
+  // 27 for the recovery header plus 4 for a compressed public key
+  private static final int COMPACT_HEADER = 27 + 4;
+
+  private final BigInteger d;
+  private final byte[] dBytes;
+  private volatile SteemPublicKey publicKey;
+
+  private SteemPrivateKey(BigInteger d) {
+    if (d.signum() <= 0 || d.compareTo(Secp256k1.N) >= 0) {
+      throw new IllegalArgumentException("Private key out of range");
+    }
+    this.d = d;
+    dBytes = Secp256k1.toBytes32(d);
+  }
+
+  public static SteemPrivateKey fromWif(@NonNull String wif) {
+    byte[] decoded = Base58.decode(wif);
+    if (decoded.length != 1 + 32 + CHECKSUM_LENGTH || decoded[0] != WIF_VERSION) {
+      throw new IllegalArgumentException("Malformed WIF");
+    }
+    byte[] checksum = Hashes.doubleSha256(decoded, 0, 33);
+    if (!Arrays.equals(Arrays.copyOf(checksum, CHECKSUM_LENGTH),
+        Arrays.copyOfRange(decoded, 33, decoded.length))) {
+      throw new IllegalArgumentException("WIF checksum mismatch");
+    }
+    return new SteemPrivateKey(new BigInteger(1, Arrays.copyOfRange(decoded, 1, 33)));
+  }
+
+  public static SteemPrivateKey fromBytes(@NonNull byte[] bytes) {
+    if (bytes.length != 32) {
+      throw new IllegalArgumentException("Private key must be 32 bytes");
+    }
+    return new SteemPrivateKey(new BigInteger(1, bytes));
+  }
+
+  /**
+   * Derives a key from an account name, a role (e.g. "active") and a password, in the same way
+   * as the login of steemit.com.
+   */
+  public static SteemPrivateKey fromLogin(@NonNull String account, @NonNull String role,
+                                          @NonNull String password) {
+    byte[] seed = (account + role + password).trim().replaceAll("\\s+", " ")
+        .getBytes(StandardCharsets.UTF_8);
+    return fromBytes(Hashes.sha256(seed));
+  }
+
+  public SteemPublicKey getPublicKey() {
+    SteemPublicKey key = publicKey;
+    if (key == null) {
+      key = new SteemPublicKey(Secp256k1.multiplyGenerator(d));
+      publicKey = key;
+    }
+    return key;
+  }
+
+  public String toWif() {
+    byte[] payload = new byte[1 + 32 + CHECKSUM_LENGTH];
+    payload[0] = WIF_VERSION;
+    System.arraycopy(dBytes, 0, payload, 1, 32);
+    byte[] checksum = Hashes.doubleSha256(payload, 0, 33);
+    System.arraycopy(checksum, 0, payload, 33, CHECKSUM_LENGTH);
+    return Base58.encode(payload);
+  }
+
+  /**
+   * Signs a 32-byte digest into a canonical compact signature.
+   *
+   * <p>The nonce is derived deterministically as RFC 6979, and further candidates of the same
+   * generator are tried until the signature gets canonical.
+   */
+  public SteemSignature sign(@NonNull byte[] digest) {
+    if (digest.length != 32) {
+      throw new IllegalArgumentException("Digest must be 32 bytes");
+    }
+    BigInteger e = new BigInteger(1, digest);
+    NonceGenerator nonceGenerator = new NonceGenerator(dBytes, digest);
+    while (true) {
+      BigInteger k = nonceGenerator.next();
+      Secp256k1.AffinePoint point = Secp256k1.multiplyGenerator(k);
+      BigInteger r = point.x.mod(Secp256k1.N);
+      if (r.signum() == 0) {
+        continue;
+      }
+      BigInteger s = k.modInverse(Secp256k1.N)
+          .multiply(e.add(r.multiply(d))).mod(Secp256k1.N);
+      if (s.signum() == 0) {
+        continue;
+      }
+      int recoveryId = (point.y.testBit(0) ? 1 : 0) | (point.x.equals(r) ? 0 : 2);
+      if (s.compareTo(Secp256k1.HALF_N) > 0) {
+        s = Secp256k1.N.subtract(s);
+        recoveryId ^= 1;
+      }
+      byte[] signature = new byte[SteemSignature.LENGTH];
+      signature[0] = (byte) (COMPACT_HEADER + recoveryId);
+      System.arraycopy(Secp256k1.toBytes32(r), 0, signature, 1, 32);
+      System.arraycopy(Secp256k1.toBytes32(s), 0, signature, 33, 32);
+      if (SteemSignature.isCanonical(signature)) {
+        return new SteemSignature(signature);
+      }
+    }
+  }
+
+  /**
+   * Returns SHA-512 of the x coordinate of the ECDH point, as used for memo encryption.
+   */
+  public byte[] getSharedSecret(@NonNull SteemPublicKey publicKey) {
+    Secp256k1.AffinePoint point = publicKey.multiply(d);
+    return Hashes.sha512(Secp256k1.toBytes32(point.x));
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    return o instanceof SteemPrivateKey && d.equals(((SteemPrivateKey) o).d);
+  }
+
+  @Override
+  public int hashCode() {
+    return d.hashCode();
+  }
+
+  @Override
+  public String toString() {
+    return "SteemPrivateKey(" + getPublicKey() + ")";
+  }
+
+  /**
+   * HMAC-DRBG of RFC 6979 section 3.2.
+   */
+  private static final class NonceGenerator {
+    private final Mac mac = Hashes.hmacSha256();
+    private byte[] k = new byte[32];
+    private byte[] v = new byte[32];
+    private boolean first = true;
+
+    NonceGenerator(byte[] privateKey, byte[] digest) {
+      byte[] h1 = Secp256k1.toBytes32(new BigInteger(1, digest).mod(Secp256k1.N));
+      Arrays.fill(v, (byte) 0x01);
+      k = hmac(k, v, new byte[] {0x00}, privateKey, h1);
+      v = hmac(k, v);
+      k = hmac(k, v, new byte[] {0x01}, privateKey, h1);
+      v = hmac(k, v);
+    }
+
+    BigInteger next() {
+      while (true) {
+        if (!first) {
+          k = hmac(k, v, new byte[] {0x00});
+          v = hmac(k, v);
+        }
+        first = false;
+        v = hmac(k, v);
+        BigInteger candidate = new BigInteger(1, v);
+        if (candidate.signum() > 0 && candidate.compareTo(Secp256k1.N) < 0) {
+          return candidate;
+        }
+      }
+    }
+
+    private byte[] hmac(byte[] key, byte[]... inputs) {
+      try {
+        mac.init(new SecretKeySpec(key, "HmacSHA256"));
+      } catch (GeneralSecurityException e) {
+        throw new IllegalStateException(e);
+      }
+      for (byte[] input : inputs) {
+        mac.update(input);
+      }
+      return mac.doFinal();
+    }
+  }
+}
@@ -0,0 +1,101 @@
+package com.ryu1sakai.steem.crypto;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import lombok.NonNull;
+
+public final class SteemPublicKey {
+  private static final String PREFIX = "STM";
+  private static final int CHECKSUM_LENGTH = 4;
+
+  private final Secp256k1.AffinePoint point;
+  private final byte[] compressed;
+
+  // Built on the first multiplication by this key, e.g. a shared secret of memos to the key
+  private volatile Secp256k1.PointTable pointTable;
+
+  SteemPublicKey(Secp256k1.AffinePoint point) {
+    this.point = point;
+    compressed = point.toCompressed();
+  }
+
+  public static SteemPublicKey fromString(@NonNull String encoded) {
+    if (!encoded.startsWith(PREFIX)) {
+      throw new IllegalArgumentException(
+          String.format("Public key must start with %s : %s", PREFIX, encoded));
+    }
+    byte[] decoded = Base58.decode(encoded.substring(PREFIX.length()));
+    if (decoded.length != 33 + CHECKSUM_LENGTH) {
+      throw new IllegalArgumentException(String.format("Malformed public key : %s", encoded));
+    }
+    byte[] key = Arrays.copyOf(decoded, 33);
+    byte[] checksum = Arrays.copyOf(Hashes.ripemd160(key), CHECKSUM_LENGTH);
+    if (!Arrays.equals(checksum, Arrays.copyOfRange(decoded, 33, decoded.length))) {
+      throw new IllegalArgumentException(String.format("Checksum mismatch : %s", encoded));
+    }
+    return fromCompressed(key);
+  }
+
+  public static SteemPublicKey fromCompressed(@NonNull byte[] compressed) {
+    return new SteemPublicKey(Secp256k1.decompress(compressed));
+  }
+
+  public byte[] toCompressed() {
+    return compressed.clone();
+  }
+
+  /**
+   * Verifies a signature in the compact form made by {@link SteemPrivateKey#sign(byte[])}.
+   */
+  public boolean verify(@NonNull byte[] digest, @NonNull SteemSignature signature) {
+    BigInteger r = signature.getR();
+    BigInteger s = signature.getS();
+    if (r.signum() <= 0 || r.compareTo(Secp256k1.N) >= 0
+        || s.signum() <= 0 || s.compareTo(Secp256k1.N) >= 0) {
+      return false;
+    }
+    BigInteger e = new BigInteger(1, digest);
+    BigInteger w = s.modInverse(Secp256k1.N);
+    BigInteger u1 = e.multiply(w).mod(Secp256k1.N);
+    BigInteger u2 = r.multiply(w).mod(Secp256k1.N);
+    try {
+      Secp256k1.AffinePoint point = Secp256k1.add(
+          Secp256k1.multiplyGenerator(u1), multiply(u2));
+      return point.x.mod(Secp256k1.N).equals(r);
+    } catch (ArithmeticException e1) {
+      return false; // Point at infinity
+    }
+  }
+
+  Secp256k1.AffinePoint multiply(BigInteger k) {
+    Secp256k1.PointTable table = pointTable;
+    if (table == null) {
+      table = new Secp256k1.PointTable(point);
+      pointTable = table;
+    }
+    return Secp256k1.multiply(table, k);
+  }
+
+  void writeTo(byte[] destination, int offset) {
+    System.arraycopy(compressed, 0, destination, offset, compressed.length);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    return o instanceof SteemPublicKey
+        && Arrays.equals(compressed, ((SteemPublicKey) o).compressed);
+  }
+
+  @Override
+  public int hashCode() {
+    return Arrays.hashCode(compressed);
+  }
+
+  @Override
+  public String toString() {
+    byte[] checksum = Hashes.ripemd160(compressed);
+    byte[] encoded = Arrays.copyOf(compressed, compressed.length + CHECKSUM_LENGTH);
+    System.arraycopy(checksum, 0, encoded, compressed.length, CHECKSUM_LENGTH);
+    return PREFIX + Base58.encode(encoded);
+  }
+}
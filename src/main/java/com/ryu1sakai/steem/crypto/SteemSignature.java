@@ -0,0 +1,72 @@
+package com.ryu1sakai.steem.crypto;
+
+import com.google.common.io.BaseEncoding;
+import java.math.BigInteger;
+import java.util.Arrays;
+import lombok.NonNull;
+
+/**
+ * Compact recoverable signature: 1 byte of recovery header, 32 bytes of r and 32 bytes of s.
+ */
+public final class SteemSignature {
+  static final int LENGTH = 65;
+
+  private final byte[] bytes;
+
+  SteemSignature(byte[] bytes) {
+    this.bytes = bytes;
+  }
+
+  public static SteemSignature fromHex(@NonNull String hex) {
+    byte[] bytes = BaseEncoding.base16().lowerCase().decode(hex.toLowerCase());
+    if (bytes.length != LENGTH) {
+      throw new IllegalArgumentException(String.format("Malformed signature : %s", hex));
+    }
+    return new SteemSignature(bytes);
+  }
+
+  /**
+   * Returns whether the signature is canonical in the sense of steemd, which rejects others.
+   */
+  public boolean isCanonical() {
+    return isCanonical(bytes);
+  }
+
+  public byte[] toBytes() {
+    return bytes.clone();
+  }
+
+  public String toHex() {
+    return BaseEncoding.base16().lowerCase().encode(bytes);
+  }
+
+  BigInteger getR() {
+    return new BigInteger(1, Arrays.copyOfRange(bytes, 1, 33));
+  }
+
+  BigInteger getS() {
+    return new BigInteger(1, Arrays.copyOfRange(bytes, 33, 65));
+  }
+
+  static boolean isCanonical(byte[] c) {
+    return (c[1] & 0x80) == 0
+        && !(c[1] == 0 && (c[2] & 0x80) == 0)
+        && (c[33] & 0x80) == 0
+        && !(c[33] == 0 && (c[34] & 0x80) == 0);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    return o instanceof SteemSignature && Arrays.equals(bytes, ((SteemSignature) o).bytes);
+  }
+
+  @Override
+  public int hashCode() {
+    return Arrays.hashCode(bytes);
+  }
+
+  @Override
+  public String toString() {
+    return toHex();
+  }
+}
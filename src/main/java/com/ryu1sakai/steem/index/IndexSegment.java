@@ -0,0 +1,334 @@
+package com.ryu1sakai.steem.index;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.SortedMap;
+
+/**
+ * Immutable file of sorted keys and their posting lists, read through a memory map.
+ *
+ * <p>Layout:
+ * <pre>
+ * magic (4) | version (4) | last block number (8) | key count (4)
+ * keys: (key length (2) | UTF-8 key | postings offset (8) | postings count (4)) * key count
+ * postings: delta-encoded varints, one list per key
+ * </pre>
+ * Keys stay in the map, and only every 64th key is loaded on heap when opened. A lookup scans the
+ * map from the nearest loaded key, and postings are decoded from the map. A segment is mapped as
+ * one buffer, so it can be up to {@link #MAX_SIZE} bytes.
+ */
+final class IndexSegment {
+  static final long MAX_SIZE = Integer.MAX_VALUE;
+
+  private static final int MAGIC = 0x53494458; // "SIDX"
+  private static final int VERSION = 1;
+  private static final int HEADER_SIZE = 4 + 4 + 8 + 4;
+  private static final int KEY_COUNT_OFFSET = 4 + 4 + 8;
+  private static final int KEY_INTERVAL = 64;
+
+  private final Path path;
+  private final long size;
+  private final long lastBlockNumber;
+  private final int keyCount;
+  private final String[] sampledKeys;
+  private final int[] sampledPositions;
+  private final MappedByteBuffer keys;
+  private final MappedByteBuffer postings;
+
+  private IndexSegment(Path path, long size, long lastBlockNumber, int keyCount,
+                       String[] sampledKeys, int[] sampledPositions, MappedByteBuffer keys,
+                       MappedByteBuffer postings) {
+    this.path = path;
+    this.size = size;
+    this.lastBlockNumber = lastBlockNumber;
+    this.keyCount = keyCount;
+    this.sampledKeys = sampledKeys;
+    this.sampledPositions = sampledPositions;
+    this.keys = keys;
+    this.postings = postings;
+  }
+
+  static IndexSegment write(Path path, SortedMap<String, LongArrayList> table,
+                            long lastBlockNumber) throws IOException {
+    try (Writer writer = new Writer(path, lastBlockNumber)) {
+      for (Map.Entry<String, LongArrayList> entry : table.entrySet()) {
+        writer.add(entry.getKey(), entry.getValue().toSortedArray());
+      }
+      return writer.finish();
+    }
+  }
+
+  /**
+   * Writes the postings of the segments into a new one, merging the lists of the same key.
+   */
+  static IndexSegment merge(Path path, List<IndexSegment> segments) throws IOException {
+    long lastBlockNumber = 0;
+    PriorityQueue<Cursor> queue = new PriorityQueue<>(Comparator.comparing(Cursor::key));
+    for (IndexSegment segment : segments) {
+      lastBlockNumber = Math.max(lastBlockNumber, segment.lastBlockNumber);
+      Cursor cursor = segment.cursor();
+      if (cursor.next()) {
+        queue.add(cursor);
+      }
+    }
+    try (Writer writer = new Writer(path, lastBlockNumber)) {
+      LongArrayList values = new LongArrayList();
+      while (!queue.isEmpty()) {
+        String key = queue.peek().key();
+        values.clear();
+        while (!queue.isEmpty() && queue.peek().key().equals(key)) {
+          Cursor cursor = queue.poll();
+          cursor.postings(values);
+          if (cursor.next()) {
+            queue.add(cursor);
+          }
+        }
+        writer.add(key, values.toSortedArray());
+      }
+      return writer.finish();
+    }
+  }
+
+  static IndexSegment open(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size > MAX_SIZE) {
+        throw new IOException(String.format("Index segment too large : %s", path));
+      }
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+      if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+        throw new IOException(String.format("Not an index segment : %s", path));
+      }
+      long lastBlockNumber = buffer.getLong();
+      int keyCount = buffer.getInt();
+      MappedByteBuffer keys = (MappedByteBuffer) buffer.slice();
+      int sampleCount = (keyCount + KEY_INTERVAL - 1) / KEY_INTERVAL;
+      String[] sampledKeys = new String[sampleCount];
+      int[] sampledPositions = new int[sampleCount];
+      int position = 0;
+      for (int i = 0; i < keyCount; i++) {
+        int keyLength = keys.getShort(position) & 0xFFFF;
+        if (i % KEY_INTERVAL == 0) {
+          sampledKeys[i / KEY_INTERVAL] = readKey(keys.duplicate(), position);
+          sampledPositions[i / KEY_INTERVAL] = position;
+        }
+        position += 2 + keyLength + 8 + 4;
+      }
+      buffer.position(HEADER_SIZE + position);
+      MappedByteBuffer postings = (MappedByteBuffer) buffer.slice();
+      return new IndexSegment(path, size, lastBlockNumber, keyCount, sampledKeys,
+          sampledPositions, keys, postings);
+    }
+  }
+
+  Path getPath() {
+    return path;
+  }
+
+  long getSize() {
+    return size;
+  }
+
+  long getLastBlockNumber() {
+    return lastBlockNumber;
+  }
+
+  void find(String key, LongArrayList result) {
+    Cursor cursor = cursorAt(key);
+    while (cursor.next()) {
+      int comparison = cursor.key().compareTo(key);
+      if (comparison == 0) {
+        cursor.postings(result);
+      }
+      if (comparison >= 0) {
+        return;
+      }
+    }
+  }
+
+  void findByPrefix(String prefix, LongArrayList result) {
+    Cursor cursor = cursorAt(prefix);
+    while (cursor.next()) {
+      if (cursor.key().startsWith(prefix)) {
+        cursor.postings(result);
+      } else if (cursor.key().compareTo(prefix) > 0) {
+        return;
+      }
+    }
+  }
+
+  Cursor cursor() {
+    return new Cursor(0, 0);
+  }
+
+  /**
+   * Returns a cursor before the last sampled key not greater than the given one.
+   */
+  private Cursor cursorAt(String key) {
+    int sample = Arrays.binarySearch(sampledKeys, key);
+    if (sample < 0) {
+      sample = Math.max(-sample - 2, 0);
+    }
+    return sampledKeys.length == 0 ? cursor()
+        : new Cursor(sample * KEY_INTERVAL, sampledPositions[sample]);
+  }
+
+  private static String readKey(ByteBuffer keys, int position) {
+    byte[] key = new byte[keys.getShort(position) & 0xFFFF];
+    keys.position(position + 2);
+    keys.get(key);
+    return new String(key, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Iterates the keys in order from a position in the key area.
+   */
+  final class Cursor {
+    private final ByteBuffer view = keys.duplicate();
+    private int index;
+    private int nextPosition;
+    private String key;
+    private long offset;
+    private int count;
+
+    private Cursor(int index, int position) {
+      this.index = index;
+      nextPosition = position;
+    }
+
+    boolean next() {
+      if (index >= keyCount) {
+        return false;
+      }
+      key = readKey(view, nextPosition);
+      offset = view.getLong();
+      count = view.getInt();
+      nextPosition = view.position();
+      index++;
+      return true;
+    }
+
+    String key() {
+      return key;
+    }
+
+    void postings(LongArrayList result) {
+      int position = Math.toIntExact(offset);
+      long value = 0;
+      for (int i = 0; i < count; i++) {
+        long delta = 0;
+        for (int shift = 0; ; shift += 7) {
+          byte b = postings.get(position++);
+          delta |= (long) (b & 0x7F) << shift;
+          if ((b & 0x80) == 0) {
+            break;
+          }
+        }
+        value += delta;
+        result.add(value);
+      }
+    }
+  }
+
+  /**
+   * Streams keys in ascending order into a new segment file, which is moved into place on
+   * {@link #finish()}.
+   */
+  private static final class Writer implements AutoCloseable {
+    private final Path path;
+    private final Path temporary;
+    private final DataOutputStream output;
+    private final VarintBuffer postingBytes = new VarintBuffer();
+    private int keyCount;
+    private boolean finished;
+
+    Writer(Path path, long lastBlockNumber) throws IOException {
+      this.path = path;
+      temporary = path.resolveSibling(path.getFileName() + ".tmp");
+      output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)));
+      // The key count is filled in by finish()
+      output.writeInt(MAGIC);
+      output.writeInt(VERSION);
+      output.writeLong(lastBlockNumber);
+      output.writeInt(0);
+    }
+
+    void add(String key, long[] values) throws IOException {
+      byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+      output.writeShort(keyBytes.length);
+      output.write(keyBytes);
+      output.writeLong(postingBytes.size());
+      output.writeInt(values.length);
+      long previous = 0;
+      for (long value : values) {
+        postingBytes.writeVarint(value - previous);
+        previous = value;
+      }
+      keyCount++;
+    }
+
+    IndexSegment finish() throws IOException {
+      postingBytes.writeTo(output);
+      output.close();
+      try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+        // Deleted by close() rather than left behind unopenable
+        if (channel.size() > MAX_SIZE) {
+          throw new IOException(String.format("Index segment too large : %s", path));
+        }
+        ByteBuffer count = ByteBuffer.allocate(4).putInt(keyCount);
+        count.flip();
+        channel.write(count, KEY_COUNT_OFFSET);
+      }
+      Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE);
+      finished = true;
+      return open(path);
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (!finished) {
+        output.close();
+        Files.deleteIfExists(temporary);
+      }
+    }
+  }
+
+  private static final class VarintBuffer {
+    private byte[] bytes = new byte[4096];
+    private int size;
+
+    void writeVarint(long value) {
+      if (size + 10 > bytes.length) {
+        bytes = Arrays.copyOf(bytes, bytes.length * 2);
+      }
+      while ((value & ~0x7FL) != 0) {
+        bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+        value >>>= 7;
+      }
+      bytes[size++] = (byte) value;
+    }
+
+    int size() {
+      return size;
+    }
+
+    void writeTo(OutputStream output) throws IOException {
+      output.write(bytes, 0, size);
+    }
+  }
+}
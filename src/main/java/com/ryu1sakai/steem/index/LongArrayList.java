@@ -0,0 +1,68 @@
+package com.ryu1sakai.steem.index;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of primitive longs, which avoids boxing postings.
+ */
+final class LongArrayList {
+  private long[] values;
+  private int size;
+
+  LongArrayList() {
+    this(4);
+  }
+
+  LongArrayList(int capacity) {
+    values = new long[Math.max(capacity, 1)];
+  }
+
+  void add(long value) {
+    if (size == values.length) {
+      values = Arrays.copyOf(values, size * 2);
+    }
+    values[size++] = value;
+  }
+
+  void addAll(long[] other) {
+    if (size + other.length > values.length) {
+      values = Arrays.copyOf(values, Math.max(values.length * 2, size + other.length));
+    }
+    System.arraycopy(other, 0, values, size, other.length);
+    size += other.length;
+  }
+
+  long get(int index) {
+    return values[index];
+  }
+
+  int size() {
+    return size;
+  }
+
+  void clear() {
+    size = 0;
+  }
+
+  /**
+   * Returns the values sorted, without duplicates.
+   */
+  long[] toSortedArray() {
+    long[] result = Arrays.copyOf(values, size);
+    boolean sorted = true;
+    for (int i = 1; i < result.length && sorted; i++) {
+      sorted = result[i - 1] < result[i];
+    }
+    if (sorted) {
+      return result;
+    }
+    Arrays.sort(result);
+    int distinct = 0;
+    for (int i = 0; i < result.length; i++) {
+      if (i == 0 || result[i] != result[distinct - 1]) {
+        result[distinct++] = result[i];
+      }
+    }
+    return Arrays.copyOf(result, distinct);
+  }
+}
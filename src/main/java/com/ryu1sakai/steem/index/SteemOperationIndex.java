@@ -0,0 +1,431 @@
+package com.ryu1sakai.steem.index;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.ryu1sakai.steem.protocol.SteemAppliedOperation;
+import com.ryu1sakai.steem.protocol.SteemBlock;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import lombok.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Local inverted index of operations by account and operation type.
+ *
+ * <p>Postings are packed into longs (see {@link #posting}) and kept in primitive arrays. Recent
+ * postings are held in memory and flushed into immutable segment files, which are memory-mapped
+ * and reopened when the index is opened again on the same directory.
+ *
+ * <p>Segments are merged in tiers of similar size: when a tier holds the merge factor of segments,
+ * they are merged into one of the next tier, so a lookup reads a logarithmic number of segments.
+ * A merged segment is written before the old ones are deleted, and postings found twice are
+ * returned once, so a crash in between loses nothing. Since a merged segment is no larger than
+ * the segments merged into it, segments too large for a full tier to fit in the max segment size
+ * are no longer merged, and the size never exceeds what a segment can map.
+ */
+public class SteemOperationIndex implements Closeable {
+  private static final Logger logger = LoggerFactory.getLogger(SteemOperationIndex.class);
+
+  public static final int DEFAULT_MAX_BUFFERED_POSTINGS = 1 << 20;
+  public static final int DEFAULT_MERGE_FACTOR = 10;
+
+  private static final String SEGMENT_GLOB = "segment-*.idx";
+  private static final String SEGMENT_FORMAT = "segment-%08d.idx";
+  private static final Pattern SEGMENT_PATTERN = Pattern.compile("segment-(\\d+)\\.idx");
+  // Segments smaller than this are all in the lowest tier
+  private static final long MIN_TIER_SIZE = 1 << 20;
+  private static final char KEY_SEPARATOR = '\u0000';
+  private static final long VIRTUAL_FLAG = 1L << 31;
+
+  /** Fields of operations which hold an account name. */
+  private static final Set<String> ACCOUNT_FIELDS = ImmutableSet.of(
+      "account", "account_to_recover", "account_to_reset", "agent", "author", "benefactor",
+      "comment_author", "creator", "curator", "current_owner", "delegatee", "delegator", "from",
+      "from_account", "new_account_name", "new_recovery_account", "open_owner", "owner",
+      "parent_author", "producer", "proposal_owner", "proxy", "publisher", "receiver",
+      "recovery_account", "reset_account", "to", "to_account", "voter", "who", "witness",
+      "worker_account");
+  /** Fields of operations which hold a list of account names. */
+  private static final Set<String> ACCOUNT_LIST_FIELDS = ImmutableSet.of(
+      "required_auths", "required_posting_auths");
+
+  private final Path directory;
+  private final int maxBufferedPostings;
+  private final int mergeFactor;
+  private final long maxSegmentSize;
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private final Lock mergeLock = new ReentrantLock();
+
+  private List<IndexSegment> segments;
+  private SortedMap<String, LongArrayList> buffer = new TreeMap<>();
+  private int bufferedPostings;
+  private long completedBlockNumber;
+  private int nextSequence;
+
+  private SteemOperationIndex(Path directory, int maxBufferedPostings, int mergeFactor,
+                              long maxSegmentSize, List<IndexSegment> segments) {
+    this.directory = directory;
+    this.maxBufferedPostings = maxBufferedPostings;
+    this.mergeFactor = mergeFactor;
+    this.maxSegmentSize = maxSegmentSize;
+    this.segments = segments;
+    for (IndexSegment segment : segments) {
+      completedBlockNumber = Math.max(completedBlockNumber, segment.getLastBlockNumber());
+      Matcher matcher = SEGMENT_PATTERN.matcher(segment.getPath().getFileName().toString());
+      if (matcher.matches()) {
+        nextSequence = Math.max(nextSequence, Integer.parseInt(matcher.group(1)) + 1);
+      }
+    }
+  }
+
+  public static SteemOperationIndex open(Path directory) throws IOException {
+    return open(directory, DEFAULT_MAX_BUFFERED_POSTINGS);
+  }
+
+  public static SteemOperationIndex open(Path directory, int maxBufferedPostings)
+      throws IOException {
+    return open(directory, maxBufferedPostings, DEFAULT_MERGE_FACTOR);
+  }
+
+  public static SteemOperationIndex open(Path directory, int maxBufferedPostings,
+                                         int mergeFactor) throws IOException {
+    return open(directory, maxBufferedPostings, mergeFactor, IndexSegment.MAX_SIZE);
+  }
+
+  @VisibleForTesting
+  static SteemOperationIndex open(@NonNull Path directory, int maxBufferedPostings,
+                                  int mergeFactor, long maxSegmentSize) throws IOException {
+    if (mergeFactor < 2) {
+      throw new IllegalArgumentException("Merge factor must be at least 2");
+    }
+    Files.createDirectories(directory);
+    List<Path> paths = new ArrayList<>();
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_GLOB)) {
+      stream.forEach(paths::add);
+    }
+    Collections.sort(paths);
+    List<IndexSegment> segments = new ArrayList<>();
+    for (Path path : paths) {
+      segments.add(IndexSegment.open(path));
+    }
+    logger.info("Opened {} segments in {}", segments.size(), directory);
+    return new SteemOperationIndex(directory, maxBufferedPostings, mergeFactor, maxSegmentSize,
+        ImmutableList.copyOf(segments));
+  }
+
+  /**
+   * Packs the location of an operation into a posting.
+   */
+  public static long posting(long blockNumber, int position, boolean virtual) {
+    return blockNumber << 32 | (virtual ? VIRTUAL_FLAG : 0) | position;
+  }
+
+  public static long blockNumberOf(long posting) {
+    return posting >>> 32;
+  }
+
+  public static int positionOf(long posting) {
+    return (int) (posting & (VIRTUAL_FLAG - 1));
+  }
+
+  public static boolean isVirtual(long posting) {
+    return (posting & VIRTUAL_FLAG) != 0;
+  }
+
+  /**
+   * Returns the highest block number up to which all the operations are indexed, to resume
+   * indexing after. Operations of later blocks may be indexed partially.
+   */
+  public long getLastBlockNumber() {
+    lock.readLock().lock();
+    try {
+      return completedBlockNumber;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Indexes the operations of a block and marks it as completed, even if none is indexed.
+   */
+  public void index(@NonNull SteemBlock block) {
+    block.getOperations().forEach(this::index);
+    complete(block.getNumber());
+  }
+
+  /**
+   * Marks the operations of the blocks up to the number as all indexed, for operations indexed
+   * one by one. Only completed blocks are persisted as indexed.
+   */
+  public void complete(long blockNumber) {
+    lock.writeLock().lock();
+    try {
+      completedBlockNumber = Math.max(completedBlockNumber, blockNumber);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  public void index(@NonNull SteemAppliedOperation operation) {
+    Set<String> accounts = accountsOf(operation);
+    if (accounts.isEmpty()) {
+      return;
+    }
+    long posting = posting(operation.getBlockNumber(), operation.getPosition(),
+        operation.isVirtual());
+    boolean flushNeeded;
+    lock.writeLock().lock();
+    try {
+      for (String account : accounts) {
+        buffer.computeIfAbsent(key(account, operation.getType()), k -> new LongArrayList())
+            .add(posting);
+      }
+      bufferedPostings += accounts.size();
+      flushNeeded = bufferedPostings >= maxBufferedPostings;
+    } finally {
+      lock.writeLock().unlock();
+    }
+    if (flushNeeded) {
+      try {
+        flush();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+
+  /**
+   * Returns the postings of operations of the type which involve the account, in ascending order.
+   */
+  public long[] find(@NonNull String account, @NonNull String type) {
+    String key = key(account, type);
+    LongArrayList result = new LongArrayList();
+    lock.readLock().lock();
+    try {
+      segments.forEach(segment -> segment.find(key, result));
+      LongArrayList buffered = buffer.get(key);
+      if (buffered != null) {
+        for (int i = 0; i < buffered.size(); i++) {
+          result.add(buffered.get(i));
+        }
+      }
+    } finally {
+      lock.readLock().unlock();
+    }
+    return result.toSortedArray();
+  }
+
+  /**
+   * Returns the postings of operations of any type which involve the account, in ascending
+   * order.
+   */
+  public long[] find(@NonNull String account) {
+    String prefix = account + KEY_SEPARATOR;
+    LongArrayList result = new LongArrayList();
+    lock.readLock().lock();
+    try {
+      segments.forEach(segment -> segment.findByPrefix(prefix, result));
+      String end = account + (char) (KEY_SEPARATOR + 1);
+      for (LongArrayList buffered : buffer.subMap(prefix, end).values()) {
+        for (int i = 0; i < buffered.size(); i++) {
+          result.add(buffered.get(i));
+        }
+      }
+    } finally {
+      lock.readLock().unlock();
+    }
+    return result.toSortedArray();
+  }
+
+  /**
+   * Writes the postings held in memory into a new segment, and merges the segments of a full
+   * tier.
+   */
+  public void flush() throws IOException {
+    lock.writeLock().lock();
+    try {
+      if (buffer.isEmpty()) {
+        return;
+      }
+      Path path = nextPath();
+      IndexSegment segment = IndexSegment.write(path, buffer, completedBlockNumber);
+      logger.debug("Flushed {} postings into {}", bufferedPostings, path);
+      segments = ImmutableList.<IndexSegment>builder().addAll(segments).add(segment).build();
+      buffer = new TreeMap<>();
+      bufferedPostings = 0;
+    } finally {
+      lock.writeLock().unlock();
+    }
+    mergeTiers();
+  }
+
+  /**
+   * Flushes the postings held in memory and merges the segments into as few as the max segment
+   * size allows, usually one.
+   */
+  public void compact() throws IOException {
+    flush();
+    mergeLock.lock();
+    try {
+      List<IndexSegment> group = new ArrayList<>();
+      long groupSize = 0;
+      for (IndexSegment segment : sortedBySize(getSegments())) {
+        if (!group.isEmpty() && groupSize + segment.getSize() > maxSegmentSize) {
+          if (group.size() > 1) {
+            merge(group);
+          }
+          group = new ArrayList<>();
+          groupSize = 0;
+        }
+        group.add(segment);
+        groupSize += segment.getSize();
+      }
+      if (group.size() > 1) {
+        merge(group);
+      }
+    } finally {
+      mergeLock.unlock();
+    }
+  }
+
+  @VisibleForTesting
+  int getSegmentCount() {
+    lock.readLock().lock();
+    try {
+      return segments.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    flush();
+  }
+
+  private void mergeTiers() throws IOException {
+    // Another thread is merging; the next flush checks the tiers again
+    if (!mergeLock.tryLock()) {
+      return;
+    }
+    try {
+      while (true) {
+        Map<Integer, List<IndexSegment>> tiers = new TreeMap<>();
+        for (IndexSegment segment : getSegments()) {
+          if (segment.getSize() <= maxSegmentSize / mergeFactor) {
+            tiers.computeIfAbsent(tierOf(segment), tier -> new ArrayList<>()).add(segment);
+          }
+        }
+        List<IndexSegment> full = tiers.values().stream()
+            .filter(tier -> tier.size() >= mergeFactor)
+            .findFirst()
+            .orElse(null);
+        if (full == null) {
+          return;
+        }
+        // A tier may have grown past the factor while another thread was merging
+        merge(full.subList(0, mergeFactor));
+      }
+    } finally {
+      mergeLock.unlock();
+    }
+  }
+
+  private int tierOf(IndexSegment segment) {
+    int tier = 0;
+    for (long size = segment.getSize(); size >= MIN_TIER_SIZE; size /= mergeFactor) {
+      tier++;
+    }
+    return tier;
+  }
+
+  private void merge(List<IndexSegment> merged) throws IOException {
+    Path path;
+    lock.writeLock().lock();
+    try {
+      path = nextPath();
+    } finally {
+      lock.writeLock().unlock();
+    }
+    // Segments are immutable, so they are merged without blocking lookups or flushes
+    IndexSegment segment = IndexSegment.merge(path, merged);
+    logger.debug("Merged {} segments into {}", merged.size(), path);
+    lock.writeLock().lock();
+    try {
+      ImmutableList.Builder<IndexSegment> builder = ImmutableList.builder();
+      segments.stream().filter(existing -> !merged.contains(existing)).forEach(builder::add);
+      segments = builder.add(segment).build();
+    } finally {
+      lock.writeLock().unlock();
+    }
+    for (IndexSegment old : merged) {
+      try {
+        Files.deleteIfExists(old.getPath());
+      } catch (IOException e) {
+        logger.warn("Failed to delete merged segment {}", old.getPath(), e);
+      }
+    }
+  }
+
+  private List<IndexSegment> getSegments() {
+    lock.readLock().lock();
+    try {
+      return segments;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private static List<IndexSegment> sortedBySize(List<IndexSegment> segments) {
+    List<IndexSegment> sorted = new ArrayList<>(segments);
+    sorted.sort(Comparator.comparingLong(IndexSegment::getSize));
+    return sorted;
+  }
+
+  private Path nextPath() {
+    return directory.resolve(String.format(SEGMENT_FORMAT, nextSequence++));
+  }
+
+  private static String key(String account, String type) {
+    return account + KEY_SEPARATOR + type;
+  }
+
+  @VisibleForTesting
+  static Set<String> accountsOf(SteemAppliedOperation operation) {
+    ImmutableSet.Builder<String> accounts = ImmutableSet.builder();
+    for (Map.Entry<String, Object> field : operation.getValue().entrySet()) {
+      Object value = field.getValue();
+      if (ACCOUNT_FIELDS.contains(field.getKey()) && value instanceof String
+          && !((String) value).isEmpty()) {
+        accounts.add((String) value);
+      } else if (ACCOUNT_LIST_FIELDS.contains(field.getKey()) && value instanceof List) {
+        for (Object element : (List<?>) value) {
+          if (element instanceof String) {
+            accounts.add((String) element);
+          }
+        }
+      }
+    }
+    return accounts.build();
+  }
+}
@@ -0,0 +1,64 @@
+package com.ryu1sakai.steem.protocol;
+
+import com.google.common.collect.ImmutableMap;
+import com.ryu1sakai.steem.client.exception.MalformedProtocolException;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+import lombok.Value;
+
+/**
+ * Operation applied in a block, in either Appbase or Condenser form of API results.
+ */
+@Value(staticConstructor = "of")
+public class SteemAppliedOperation {
+  private static final String APPBASE_TYPE_SUFFIX = "_operation";
+
+  private long blockNumber;
+  /** Index of the operation in the block; virtual operations are numbered separately. */
+  private int position;
+  /** Name in Condenser API, e.g. "transfer". */
+  private String type;
+  private Map<String, Object> value;
+  private boolean virtual;
+
+  /**
+   * Parses an operation, either ["transfer", {...}] of Condenser API or {"type":
+   * "transfer_operation", "value": {...}} of Appbase API.
+   */
+  public static SteemAppliedOperation parse(Object operation, long blockNumber, int position,
+                                            boolean virtual) {
+    Object type;
+    Object value;
+    if (operation instanceof List && ((List<?>) operation).size() == 2) {
+      type = ((List<?>) operation).get(0);
+      value = ((List<?>) operation).get(1);
+    } else if (operation instanceof Map) {
+      type = ((Map<?, ?>) operation).get("type");
+      value = ((Map<?, ?>) operation).get("value");
+    } else {
+      type = null;
+      value = null;
+    }
+    if (!(type instanceof String) || !(value instanceof Map)) {
+      throw new MalformedProtocolException(String.format("Malformed operation : %s", operation));
+    }
+    String typeName = (String) type;
+    if (typeName.endsWith(APPBASE_TYPE_SUFFIX)) {
+      typeName = typeName.substring(0, typeName.length() - APPBASE_TYPE_SUFFIX.length());
+    }
+    ImmutableMap.Builder<String, Object> valueBuilder = ImmutableMap.builder();
+    ((Map<?, ?>) value).forEach((k, v) -> {
+      if (v != null) {
+        valueBuilder.put(String.valueOf(k), v);
+      }
+    });
+    return of(blockNumber, position, typeName, valueBuilder.build(), virtual);
+  }
+
+  @Nullable
+  public String getString(String key) {
+    Object field = value.get(key);
+    return field instanceof String ? (String) field : null;
+  }
+}
@@ -0,0 +1,125 @@
+package com.ryu1sakai.steem.protocol;
+
+import com.ryu1sakai.steem.SteemAsset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Little-endian writer of the binary serialization of steemd (fc::raw).
+ *
+ * <p>{@link #reusable()} returns a per-thread instance so that serializing a transaction does not
+ * allocate a new buffer each time. Such an instance must not be kept after the serialized bytes
+ * are consumed.
+ */
+public final class SteemBinaryWriter {
+  private static final int INITIAL_CAPACITY = 1024;
+  private static final int ASSET_SYMBOL_LENGTH = 7;
+
+  private static final ThreadLocal<SteemBinaryWriter> REUSABLE
+      = ThreadLocal.withInitial(SteemBinaryWriter::new);
+
+  private byte[] buffer;
+  private int size;
+
+  public SteemBinaryWriter() {
+    buffer = new byte[INITIAL_CAPACITY];
+  }
+
+  public static SteemBinaryWriter reusable() {
+    SteemBinaryWriter writer = REUSABLE.get();
+    writer.reset();
+    return writer;
+  }
+
+  public SteemBinaryWriter reset() {
+    size = 0;
+    return this;
+  }
+
+  public SteemBinaryWriter writeUint8(int value) {
+    ensureCapacity(1);
+    buffer[size++] = (byte) value;
+    return this;
+  }
+
+  public SteemBinaryWriter writeUint16(int value) {
+    ensureCapacity(2);
+    buffer[size++] = (byte) value;
+    buffer[size++] = (byte) (value >>> 8);
+    return this;
+  }
+
+  public SteemBinaryWriter writeUint32(long value) {
+    ensureCapacity(4);
+    for (int i = 0; i < 4; i++) {
+      buffer[size++] = (byte) (value >>> (8 * i));
+    }
+    return this;
+  }
+
+  public SteemBinaryWriter writeInt64(long value) {
+    ensureCapacity(8);
+    for (int i = 0; i < 8; i++) {
+      buffer[size++] = (byte) (value >>> (8 * i));
+    }
+    return this;
+  }
+
+  public SteemBinaryWriter writeVarint32(int value) {
+    ensureCapacity(5);
+    while ((value & ~0x7F) != 0) {
+      buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    buffer[size++] = (byte) value;
+    return this;
+  }
+
+  public SteemBinaryWriter writeBytes(byte[] bytes) {
+    ensureCapacity(bytes.length);
+    System.arraycopy(bytes, 0, buffer, size, bytes.length);
+    size += bytes.length;
+    return this;
+  }
+
+  public SteemBinaryWriter writeString(String value) {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    writeVarint32(bytes.length);
+    return writeBytes(bytes);
+  }
+
+  /**
+   * Writes an asset in the legacy form: 64-bit amount, 8-bit precision and 7-byte symbol name.
+   */
+  public SteemBinaryWriter writeAsset(SteemAsset asset) {
+    writeInt64(asset.getAmount());
+    writeUint8(asset.getSymbol().getPrecision());
+    String name = asset.getSymbol().name();
+    ensureCapacity(ASSET_SYMBOL_LENGTH);
+    for (int i = 0; i < ASSET_SYMBOL_LENGTH; i++) {
+      buffer[size++] = i < name.length() ? (byte) name.charAt(i) : 0;
+    }
+    return this;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns the internal buffer, whose first {@link #size()} bytes are valid.
+   */
+  public byte[] buffer() {
+    return buffer;
+  }
+
+  public byte[] toByteArray() {
+    return Arrays.copyOf(buffer, size);
+  }
+
+  private void ensureCapacity(int additional) {
+    if (size + additional > buffer.length) {
+      buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + additional));
+    }
+  }
+}
@@ -0,0 +1,85 @@
+package com.ryu1sakai.steem.protocol;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.ryu1sakai.steem.client.SteemCallParameter;
+import com.ryu1sakai.steem.client.exception.MalformedProtocolException;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+import lombok.Value;
+
+@Value
+public class SteemBlock {
+  private long number;
+  private String blockId;
+  private String previous;
+  private Instant timestamp;
+  private List<String> transactionIds;
+  /** Operations in the order of the transactions. */
+  private List<SteemAppliedOperation> operations;
+
+  public static SteemCallParameter request(long number) {
+    return SteemCallParameter.of("block_api", "get_block",
+        ImmutableMap.<String, Object>of("block_num", number), ImmutableList.<Object>of(number));
+  }
+
+  /**
+   * Parses a result of {@code get_block}, or returns null if the block does not exist yet.
+   */
+  @Nullable
+  public static SteemBlock fromResult(@Nullable Object result) {
+    if (result instanceof Map && ((Map<?, ?>) result).containsKey("block")) {
+      result = ((Map<?, ?>) result).get("block"); // Appbase API
+    }
+    if (result == null || (result instanceof Map && ((Map<?, ?>) result).isEmpty())) {
+      return null;
+    }
+    if (!(result instanceof Map)) {
+      throw new MalformedProtocolException(String.format("Malformed block : %s", result));
+    }
+    Map<?, ?> block = (Map<?, ?>) result;
+    Object blockId = block.get("block_id");
+    Object previous = block.get("previous");
+    Object timestamp = block.get("timestamp");
+    Object transactions = block.get("transactions");
+    if (!(blockId instanceof String) || ((String) blockId).length() < 8
+        || !(previous instanceof String) || !(timestamp instanceof String)
+        || !(transactions instanceof List)) {
+      throw new MalformedProtocolException(String.format("Malformed block : %s", result));
+    }
+    long number = numberOf((String) blockId);
+
+    ImmutableList.Builder<SteemAppliedOperation> operations = ImmutableList.builder();
+    int position = 0;
+    for (Object transaction : (List<?>) transactions) {
+      Object transactionOperations
+          = transaction instanceof Map ? ((Map<?, ?>) transaction).get("operations") : null;
+      if (!(transactionOperations instanceof List)) {
+        throw new MalformedProtocolException(
+            String.format("Malformed transaction : %s", transaction));
+      }
+      for (Object operation : (List<?>) transactionOperations) {
+        operations.add(SteemAppliedOperation.parse(operation, number, position++, false));
+      }
+    }
+
+    ImmutableList.Builder<String> transactionIds = ImmutableList.builder();
+    Object ids = block.get("transaction_ids");
+    if (ids instanceof List) {
+      ((List<?>) ids).forEach(id -> transactionIds.add(String.valueOf(id)));
+    }
+
+    return new SteemBlock(number, (String) blockId, (String) previous,
+        SteemChainState.parseTime((String) timestamp), transactionIds.build(),
+        operations.build());
+  }
+
+  /**
+   * Returns the block number, which is the first 4 bytes of a block ID.
+   */
+  public static long numberOf(String blockId) {
+    return Long.parseLong(blockId.substring(0, 8), 16);
+  }
+}
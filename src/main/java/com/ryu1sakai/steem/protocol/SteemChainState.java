@@ -0,0 +1,60 @@
+package com.ryu1sakai.steem.protocol;
+
+import com.google.common.io.BaseEncoding;
+import com.ryu1sakai.steem.client.exception.MalformedProtocolException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+import lombok.Value;
+
+/**
+ * Head of the chain, which transactions refer to as TaPoS (Transactions as Proof of Stake).
+ */
+@Value(staticConstructor = "of")
+public class SteemChainState {
+  private long headBlockNumber;
+  private String headBlockId;
+  private Instant time;
+
+  /**
+   * Parses a result of {@code get_dynamic_global_properties}, which is the same in Appbase API
+   * and Condenser API.
+   */
+  public static SteemChainState fromDynamicGlobalProperties(Object result) {
+    if (!(result instanceof Map)) {
+      throw new MalformedProtocolException(
+          String.format("Malformed dynamic global properties : %s", result));
+    }
+    Map<?, ?> properties = (Map<?, ?>) result;
+    Object number = properties.get("head_block_number");
+    Object id = properties.get("head_block_id");
+    Object time = properties.get("time");
+    if (!(number instanceof Number) || !(id instanceof String) || !(time instanceof String)) {
+      throw new MalformedProtocolException(
+          String.format("Malformed dynamic global properties : %s", result));
+    }
+    return of(((Number) number).longValue(), (String) id, parseTime((String) time));
+  }
+
+  /**
+   * Parses a time of steemd, e.g. "2018-10-01T12:34:56", which is always in UTC.
+   */
+  public static Instant parseTime(String time) {
+    try {
+      return LocalDateTime.parse(time).toInstant(ZoneOffset.UTC);
+    } catch (DateTimeParseException e) {
+      throw new MalformedProtocolException(String.format("Malformed time : %s", time));
+    }
+  }
+
+  public int getRefBlockNum() {
+    return (int) (headBlockNumber & 0xFFFF);
+  }
+
+  public long getRefBlockPrefix() {
+    byte[] id = BaseEncoding.base16().lowerCase().decode(headBlockId.toLowerCase());
+    return (id[4] & 0xFFL) | (id[5] & 0xFFL) << 8 | (id[6] & 0xFFL) << 16 | (id[7] & 0xFFL) << 24;
+  }
+}
@@ -0,0 +1,22 @@
+package com.ryu1sakai.steem.protocol;
+
+import java.util.Map;
+
+public interface SteemOperation {
+
+  /**
+   * Returns the index of the operation in {@code steem::protocol::operation}.
+   */
+  int getTypeId();
+
+  /**
+   * Returns the name of the operation in Condenser API, e.g. "transfer".
+   */
+  String getTypeName();
+
+  void writeTo(SteemBinaryWriter writer);
+
+  Map<String, Object> toCondenserValue();
+
+  Map<String, Object> toAppbaseValue();
+}
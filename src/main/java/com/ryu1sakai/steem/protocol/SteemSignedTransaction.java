@@ -0,0 +1,37 @@
+package com.ryu1sakai.steem.protocol;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.ryu1sakai.steem.crypto.SteemSignature;
+import java.util.List;
+import java.util.Map;
+import lombok.Value;
+
+@Value(staticConstructor = "of")
+public class SteemSignedTransaction {
+  private SteemTransaction transaction;
+  private List<SteemSignature> signatures;
+
+  public Map<String, Object> toCondenserJson() {
+    List<Object> operations = transaction.getOperations().stream()
+        .<Object>map(operation -> ImmutableList.of(
+            operation.getTypeName(), operation.toCondenserValue()))
+        .collect(ImmutableList.toImmutableList());
+    return transaction.toJson(operations, signatureHexes());
+  }
+
+  public Map<String, Object> toAppbaseJson() {
+    List<Object> operations = transaction.getOperations().stream()
+        .<Object>map(operation -> ImmutableMap.of(
+            "type", operation.getTypeName() + "_operation",
+            "value", operation.toAppbaseValue()))
+        .collect(ImmutableList.toImmutableList());
+    return transaction.toJson(operations, signatureHexes());
+  }
+
+  private List<String> signatureHexes() {
+    return signatures.stream()
+        .map(SteemSignature::toHex)
+        .collect(ImmutableList.toImmutableList());
+  }
+}
@@ -0,0 +1,80 @@
+package com.ryu1sakai.steem.protocol;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.BaseEncoding;
+import com.ryu1sakai.steem.crypto.Hashes;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import lombok.NonNull;
+import lombok.Value;
+
+@Value
+public class SteemTransaction {
+  private static final DateTimeFormatter TIME_FORMATTER
+      = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss").withZone(ZoneOffset.UTC);
+
+  private int refBlockNum;
+  private long refBlockPrefix;
+  private Instant expiration;
+  private List<SteemOperation> operations;
+
+  public static SteemTransaction of(@NonNull SteemChainState chainState,
+                                    @NonNull Duration expiration,
+                                    @NonNull List<? extends SteemOperation> operations) {
+    return new SteemTransaction(chainState.getRefBlockNum(), chainState.getRefBlockPrefix(),
+        chainState.getTime().plus(expiration).truncatedTo(ChronoUnit.SECONDS),
+        ImmutableList.copyOf(operations));
+  }
+
+  public void writeTo(SteemBinaryWriter writer) {
+    writer.writeUint16(refBlockNum)
+        .writeUint32(refBlockPrefix)
+        .writeUint32(expiration.getEpochSecond())
+        .writeVarint32(operations.size());
+    for (SteemOperation operation : operations) {
+      writer.writeVarint32(operation.getTypeId());
+      operation.writeTo(writer);
+    }
+    writer.writeVarint32(0); // extensions
+  }
+
+  public int getSerializedSize() {
+    SteemBinaryWriter writer = SteemBinaryWriter.reusable();
+    writeTo(writer);
+    return writer.size();
+  }
+
+  /**
+   * Returns the digest to be signed, which is SHA-256 of the chain ID and the transaction.
+   */
+  public byte[] digest(byte[] chainId) {
+    SteemBinaryWriter writer = SteemBinaryWriter.reusable();
+    writeTo(writer);
+    return Hashes.sha256(chainId, writer.buffer(), 0, writer.size());
+  }
+
+  public String getTransactionId() {
+    SteemBinaryWriter writer = SteemBinaryWriter.reusable();
+    writeTo(writer);
+    byte[] hash = Hashes.sha256(writer.buffer(), 0, writer.size());
+    return BaseEncoding.base16().lowerCase().encode(Arrays.copyOf(hash, 20));
+  }
+
+  Map<String, Object> toJson(List<Object> operationsJson, List<String> signatures) {
+    return ImmutableMap.<String, Object>builder()
+        .put("ref_block_num", refBlockNum)
+        .put("ref_block_prefix", refBlockPrefix)
+        .put("expiration", TIME_FORMATTER.format(expiration))
+        .put("operations", operationsJson)
+        .put("extensions", ImmutableList.of())
+        .put("signatures", signatures)
+        .build();
+  }
+}
@@ -0,0 +1,53 @@
+package com.ryu1sakai.steem.protocol;
+
+import com.google.common.collect.ImmutableList;
+import com.ryu1sakai.steem.crypto.SteemPrivateKey;
+import com.ryu1sakai.steem.crypto.SteemSignature;
+import java.util.List;
+import lombok.NonNull;
+
+public class SteemTransactionSigner {
+  private static final byte[] MAINNET_CHAIN_ID = new byte[32];
+
+  private final byte[] chainId;
+
+  public SteemTransactionSigner() {
+    this(MAINNET_CHAIN_ID);
+  }
+
+  public SteemTransactionSigner(@NonNull byte[] chainId) {
+    if (chainId.length != 32) {
+      throw new IllegalArgumentException("Chain ID must be 32 bytes");
+    }
+    this.chainId = chainId.clone();
+  }
+
+  /**
+   * Returns a copy of the chain ID of the main network, which is all zeros.
+   */
+  public static byte[] mainnetChainId() {
+    return MAINNET_CHAIN_ID.clone();
+  }
+
+  public SteemSignedTransaction sign(SteemTransaction transaction, SteemPrivateKey key) {
+    return sign(transaction, ImmutableList.of(key));
+  }
+
+  public SteemSignedTransaction sign(SteemTransaction transaction, List<SteemPrivateKey> keys) {
+    byte[] digest = transaction.digest(chainId);
+    List<SteemSignature> signatures = keys.stream()
+        .map(key -> key.sign(digest))
+        .collect(ImmutableList.toImmutableList());
+    return SteemSignedTransaction.of(transaction, signatures);
+  }
+
+  /**
+   * Signs the transactions in parallel over the common fork-join pool, keeping their order.
+   */
+  public List<SteemSignedTransaction> signAll(List<SteemTransaction> transactions,
+                                              SteemPrivateKey key) {
+    return transactions.parallelStream()
+        .map(transaction -> sign(transaction, key))
+        .collect(ImmutableList.toImmutableList());
+  }
+}
@@ -0,0 +1,51 @@
+package com.ryu1sakai.steem.protocol;
+
+import com.google.common.collect.ImmutableMap;
+import com.ryu1sakai.steem.SteemAsset;
+import java.util.Map;
+import lombok.NonNull;
+import lombok.Value;
+
+@Value(staticConstructor = "of")
+public class SteemTransferOperation implements SteemOperation {
+  private static final int TYPE_ID = 2;
+  private static final String TYPE_NAME = "transfer";
+
+  @NonNull
+  private String from;
+  @NonNull
+  private String to;
+  @NonNull
+  private SteemAsset amount;
+  /** Plain or already encrypted memo. */
+  @NonNull
+  private String memo;
+
+  @Override
+  public int getTypeId() {
+    return TYPE_ID;
+  }
+
+  @Override
+  public String getTypeName() {
+    return TYPE_NAME;
+  }
+
+  @Override
+  public void writeTo(SteemBinaryWriter writer) {
+    writer.writeString(from)
+        .writeString(to)
+        .writeAsset(amount)
+        .writeString(memo);
+  }
+
+  @Override
+  public Map<String, Object> toCondenserValue() {
+    return ImmutableMap.of("from", from, "to", to, "amount", amount.toLegacyString(), "memo", memo);
+  }
+
+  @Override
+  public Map<String, Object> toAppbaseValue() {
+    return ImmutableMap.of("from", from, "to", to, "amount", amount.toNaiObject(), "memo", memo);
+  }
+}
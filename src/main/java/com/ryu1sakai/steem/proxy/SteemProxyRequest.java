@@ -0,0 +1,24 @@
+package com.ryu1sakai.steem.proxy;
+
+import com.google.api.client.util.Key;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+/**
+ * JSON-RPC request received by the proxy, whose id may be either a number or a string.
+ */
+@Data
+@Accessors(chain = true)
+public class SteemProxyRequest {
+  @Key
+  private String jsonrpc;
+
+  @Key
+  private Object id;
+
+  @Key
+  private String method;
+
+  @Key
+  private Object params;
+}
@@ -0,0 +1,334 @@
+package com.ryu1sakai.steem.proxy;
+
+import com.google.api.client.json.JsonFactory;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.io.ByteStreams;
+import com.ryu1sakai.steem.client.SteemHttpClient;
+import com.ryu1sakai.steem.client.model.SteemRpcRequest;
+import com.ryu1sakai.steem.client.model.SteemRpcResponse;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.reactivex.Flowable;
+import io.reactivex.Scheduler;
+import io.reactivex.Single;
+import io.reactivex.schedulers.Schedulers;
+import io.reactivex.subjects.SingleSubject;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.Nullable;
+import lombok.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Local JSON-RPC endpoint which serves single and batch requests of many processes through one
+ * shared {@link SteemHttpClient}.
+ *
+ * <p>Identical requests in flight are sent to the nodes only once, and successful results of
+ * read-only methods are cached for a while. The elements of a batch are sent to the nodes
+ * concurrently on the given scheduler. Statistics are served at {@code /stats}.
+ */
+public class SteemProxyServer implements Closeable {
+  private static final Logger logger = LoggerFactory.getLogger(SteemProxyServer.class);
+
+  public static final Duration DEFAULT_CACHE_TTL = Duration.ofSeconds(3);
+  public static final long DEFAULT_MAX_CACHE_SIZE = 10_000;
+  public static final int DEFAULT_THREADS = 16;
+
+  private static final String JSON_RPC = "2.0";
+  private static final int PARSE_ERROR = -32700;
+  private static final int INVALID_REQUEST = -32600;
+  private static final int INTERNAL_ERROR = -32603;
+
+  /** Read-only methods of any API, whose results may be served for the cache TTL. */
+  private static final Set<String> CACHEABLE_METHODS = ImmutableSet.of(
+      "enumerate_virtual_ops", "find_accounts", "get_account_count", "get_account_history",
+      "get_accounts", "get_active_votes", "get_block", "get_block_header", "get_chain_properties",
+      "get_config", "get_content", "get_content_replies", "get_current_median_history_price",
+      "get_dynamic_global_properties", "get_feed_history", "get_hardfork_version",
+      "get_ops_in_block", "get_reward_fund", "get_version", "get_witness_schedule",
+      "lookup_accounts");
+
+  private final SteemHttpClient client;
+  private final JsonFactory jsonFactory;
+  private final InetSocketAddress address;
+  private final int threads;
+  private final Scheduler scheduler;
+  private final Cache<String, SteemRpcResponse> cache;
+  private final ConcurrentMap<String, Single<SteemRpcResponse>> inFlight
+      = new ConcurrentHashMap<>();
+  private final AtomicLong upstreamIds = new AtomicLong();
+
+  private final LongAdder requestCount = new LongAdder();
+  private final LongAdder batchCount = new LongAdder();
+  private final LongAdder cacheHitCount = new LongAdder();
+  private final LongAdder deduplicatedCount = new LongAdder();
+  private final LongAdder upstreamCallCount = new LongAdder();
+  private final LongAdder errorCount = new LongAdder();
+  private final LongAdder totalLatencyNanos = new LongAdder();
+  private final LongAccumulator maxLatencyNanos = new LongAccumulator(Math::max, 0);
+
+  private HttpServer server;
+  private ExecutorService executor;
+  private long startNanos;
+
+  public SteemProxyServer(SteemHttpClient client, JsonFactory jsonFactory,
+                          InetSocketAddress address) {
+    this(client, jsonFactory, address, DEFAULT_CACHE_TTL, DEFAULT_MAX_CACHE_SIZE,
+        DEFAULT_THREADS);
+  }
+
+  public SteemProxyServer(SteemHttpClient client, JsonFactory jsonFactory,
+                          InetSocketAddress address, Duration cacheTtl, long maxCacheSize,
+                          int threads) {
+    this(client, jsonFactory, address, cacheTtl, maxCacheSize, threads, Schedulers.io());
+  }
+
+  public SteemProxyServer(@NonNull SteemHttpClient client, @NonNull JsonFactory jsonFactory,
+                          @NonNull InetSocketAddress address, @NonNull Duration cacheTtl,
+                          long maxCacheSize, int threads, @NonNull Scheduler scheduler) {
+    this.client = client;
+    this.jsonFactory = jsonFactory;
+    this.address = address;
+    this.threads = threads;
+    this.scheduler = scheduler;
+    cache = CacheBuilder.newBuilder()
+        .expireAfterWrite(cacheTtl.toNanos(), TimeUnit.NANOSECONDS)
+        .maximumSize(maxCacheSize)
+        .build();
+  }
+
+  public synchronized void start() throws IOException {
+    if (server != null) {
+      throw new IllegalStateException("Already started");
+    }
+    executor = Executors.newFixedThreadPool(threads);
+    server = HttpServer.create(address, 0);
+    server.setExecutor(executor);
+    server.createContext("/", this::handleRpc);
+    server.createContext("/stats", this::handleStats);
+    startNanos = System.nanoTime();
+    server.start();
+    logger.info("Proxy started at {}", server.getAddress());
+  }
+
+  /**
+   * Returns the address actually bound, which has the port chosen when started with port 0.
+   */
+  public synchronized InetSocketAddress getAddress() {
+    if (server == null) {
+      throw new IllegalStateException("Not started");
+    }
+    return server.getAddress();
+  }
+
+  public SteemProxyStatistics getStatistics() {
+    long requests = requestCount.sum();
+    return new SteemProxyStatistics(
+        Duration.ofNanos(System.nanoTime() - startNanos),
+        requests,
+        batchCount.sum(),
+        cacheHitCount.sum(),
+        deduplicatedCount.sum(),
+        upstreamCallCount.sum(),
+        errorCount.sum(),
+        Duration.ofNanos(requests == 0 ? 0 : totalLatencyNanos.sum() / requests),
+        Duration.ofNanos(maxLatencyNanos.get()));
+  }
+
+  @Override
+  public synchronized void close() {
+    if (server == null) {
+      return;
+    }
+    server.stop(0);
+    executor.shutdown();
+    server = null;
+    logger.info("Proxy stopped : {}", getStatistics());
+  }
+
+  private void handleRpc(HttpExchange exchange) throws IOException {
+    try {
+      if (!"POST".equals(exchange.getRequestMethod())) {
+        exchange.sendResponseHeaders(405, -1);
+        return;
+      }
+      byte[] body = ByteStreams.toByteArray(exchange.getRequestBody());
+      Object response;
+      try {
+        if (isBatch(body)) {
+          Collection<SteemProxyRequest> requests = jsonFactory
+              .createJsonParser(new ByteArrayInputStream(body), StandardCharsets.UTF_8)
+              .parseArrayAndClose(ArrayList.class, SteemProxyRequest.class);
+          batchCount.increment();
+          if (requests.isEmpty()) {
+            errorCount.increment();
+            response = errorResponse(null, INVALID_REQUEST, "Empty batch");
+          } else {
+            response = Flowable.fromIterable(requests)
+                .concatMapEager(request -> serve(request).toFlowable())
+                .toList()
+                .blockingGet();
+          }
+        } else {
+          SteemProxyRequest request = jsonFactory
+              .createJsonParser(new ByteArrayInputStream(body), StandardCharsets.UTF_8)
+              .parseAndClose(SteemProxyRequest.class);
+          response = serve(request).blockingGet();
+        }
+      } catch (IOException | IllegalArgumentException e) {
+        errorCount.increment();
+        response = errorResponse(null, PARSE_ERROR, String.valueOf(e.getMessage()));
+      }
+      send(exchange, response);
+    } finally {
+      exchange.close();
+    }
+  }
+
+  private void handleStats(HttpExchange exchange) throws IOException {
+    try {
+      SteemProxyStatistics statistics = getStatistics();
+      Map<String, Object> response = new LinkedHashMap<>();
+      response.put("uptime_seconds", statistics.getUptime().getSeconds());
+      response.put("requests", statistics.getRequestCount());
+      response.put("requests_per_second", statistics.getRequestsPerSecond());
+      response.put("batches", statistics.getBatchCount());
+      response.put("cache_hits", statistics.getCacheHitCount());
+      response.put("deduplicated", statistics.getDeduplicatedCount());
+      response.put("upstream_calls", statistics.getUpstreamCallCount());
+      response.put("errors", statistics.getErrorCount());
+      response.put("mean_latency_micros", statistics.getMeanLatency().toNanos() / 1000);
+      response.put("max_latency_micros", statistics.getMaxLatency().toNanos() / 1000);
+      send(exchange, response);
+    } finally {
+      exchange.close();
+    }
+  }
+
+  private Single<Map<String, Object>> serve(SteemProxyRequest request) {
+    requestCount.increment();
+    long startNanos = System.nanoTime();
+    Object id = request.getId();
+    if (request.getMethod() == null) {
+      errorCount.increment();
+      return Single.just(errorResponse(id, INVALID_REQUEST, "Missing method"));
+    }
+    return Single
+        .defer(() -> upstream(request))
+        .map(response -> {
+          Map<String, Object> result = response(id);
+          if (response.getError() == null) {
+            result.put("result", response.getResult());
+          } else {
+            result.put("error", response.getError());
+          }
+          return result;
+        })
+        .onErrorReturn(error -> {
+          logger.warn("Failed to serve {}", request, error);
+          errorCount.increment();
+          return errorResponse(id, INTERNAL_ERROR, String.valueOf(error.getMessage()));
+        })
+        .doFinally(() -> {
+          long latencyNanos = System.nanoTime() - startNanos;
+          totalLatencyNanos.add(latencyNanos);
+          maxLatencyNanos.accumulate(latencyNanos);
+        });
+  }
+
+  private Single<SteemRpcResponse> upstream(SteemProxyRequest request) throws IOException {
+    boolean cacheable = isCacheable(request.getMethod());
+    String key = request.getMethod() + ' ' + jsonFactory.toString(request.getParams());
+    if (cacheable) {
+      SteemRpcResponse cached = cache.getIfPresent(key);
+      if (cached != null) {
+        cacheHitCount.increment();
+        return Single.just(cached);
+      }
+    }
+    SingleSubject<SteemRpcResponse> created = SingleSubject.create();
+    Single<SteemRpcResponse> existing = inFlight.putIfAbsent(key, created);
+    if (existing != null) {
+      deduplicatedCount.increment();
+      return existing;
+    }
+    upstreamCallCount.increment();
+    SteemRpcRequest upstreamRequest = new SteemRpcRequest()
+        .setJsonrpc(JSON_RPC)
+        .setId(upstreamIds.incrementAndGet())
+        .setMethod(request.getMethod())
+        .setParams(request.getParams());
+    // The client blocks while calling, so each call needs its own thread to overlap in a batch
+    client.forward(upstreamRequest)
+        .subscribeOn(scheduler)
+        .doOnSuccess(response -> {
+          if (cacheable && response.getError() == null) {
+            cache.put(key, response);
+          }
+        })
+        // Only its own entry, which may already be replaced by a later request of the same key
+        .doFinally(() -> inFlight.remove(key, created))
+        .subscribe(created);
+    return created;
+  }
+
+  private void send(HttpExchange exchange, Object response) throws IOException {
+    byte[] bytes = jsonFactory.toByteArray(response);
+    exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+    exchange.sendResponseHeaders(200, bytes.length);
+    try (OutputStream output = exchange.getResponseBody()) {
+      output.write(bytes);
+    }
+  }
+
+  private static boolean isBatch(byte[] body) {
+    for (byte b : body) {
+      if (!Character.isWhitespace(b)) {
+        return b == '[';
+      }
+    }
+    return false;
+  }
+
+  private static boolean isCacheable(String method) {
+    return CACHEABLE_METHODS.contains(method.substring(method.lastIndexOf('.') + 1));
+  }
+
+  private static Map<String, Object> response(@Nullable Object id) {
+    Map<String, Object> response = new LinkedHashMap<>();
+    response.put("jsonrpc", JSON_RPC);
+    response.put("id", id);
+    return response;
+  }
+
+  private static Map<String, Object> errorResponse(@Nullable Object id, int code,
+                                                   String message) {
+    Map<String, Object> error = new LinkedHashMap<>();
+    error.put("code", code);
+    error.put("message", message);
+    Map<String, Object> response = response(id);
+    response.put("error", error);
+    return response;
+  }
+}
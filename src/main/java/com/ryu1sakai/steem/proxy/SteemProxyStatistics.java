@@ -0,0 +1,25 @@
+package com.ryu1sakai.steem.proxy;
+
+import java.time.Duration;
+import lombok.Value;
+
+@Value
+public class SteemProxyStatistics {
+  private Duration uptime;
+  private long requestCount;
+  private long batchCount;
+  /** Requests served from the cache. */
+  private long cacheHitCount;
+  /** Requests joined to an identical request in flight. */
+  private long deduplicatedCount;
+  /** Requests actually sent to the nodes. */
+  private long upstreamCallCount;
+  private long errorCount;
+  private Duration meanLatency;
+  private Duration maxLatency;
+
+  public double getRequestsPerSecond() {
+    double seconds = uptime.toNanos() / 1e9;
+    return seconds > 0 ? requestCount / seconds : 0;
+  }
+}
@@ -0,0 +1,184 @@
+package com.ryu1sakai.steem;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.ryu1sakai.steem.client.SteemCallParameter;
+import com.ryu1sakai.steem.client.SteemCallResult;
+import com.ryu1sakai.steem.client.SteemClient;
+import com.ryu1sakai.steem.protocol.SteemBlock;
+import io.reactivex.Flowable;
+import io.reactivex.Single;
+import io.reactivex.schedulers.Schedulers;
+import java.util.List;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+public class SteemAccountStateCacheTest {
+
+  @Rule
+  public MockitoRule mockito = MockitoJUnit.rule();
+
+  @Mock
+  private SteemClient client;
+
+  private SteemAccountStateCache sut;
+
+  @Before
+  public void setUp() {
+    given(client.call(argThat(parameter -> isMethod(parameter, "get_dynamic_global_properties"))))
+        .willReturn(Single.just(dynamicGlobalProperties(100)));
+    given(client.call(argThat(parameter -> isMethod(parameter, "find_accounts"))))
+        .willReturn(Single.just(SteemCallResult.of(ImmutableList.of(
+            account("alice", "10.000 STEEM"), account("bob", "1.000 STEEM")))));
+    sut = new SteemAccountStateCache(client);
+    sut.track(ImmutableList.of("alice", "bob")).blockingAwait();
+  }
+
+  @Test
+  public void track_condenserApi() {
+    then(client).should().call(argThat(parameter -> isMethod(parameter, "find_accounts")
+        && parameter.forCondenserApi().getMethod().equals("condenser_api.get_accounts")));
+  }
+
+  @Test
+  public void track_headMoved() {
+    given(client.call(argThat(parameter -> isMethod(parameter, "get_dynamic_global_properties"))))
+        .willReturn(Single.just(dynamicGlobalProperties(100)),
+            Single.just(dynamicGlobalProperties(102)));
+
+    sut.track(ImmutableList.of("alice", "bob")).blockingAwait();
+
+    assertThat(sut.get("alice").getSyncedBlockNumber()).isEqualTo(102);
+    assertThat(sut.getDriftedAccounts()).containsExactlyInAnyOrder("alice", "bob");
+  }
+
+  @Test
+  public void apply() {
+    sut.apply(block(101, ImmutableList.of(
+        ImmutableList.of("transfer", ImmutableMap.of(
+            "from", "alice", "to", "bob", "amount", "2.500 STEEM", "memo", "")),
+        ImmutableList.of("vote", ImmutableMap.of(
+            "voter", "alice", "author", "bob", "permlink", "p", "weight", 10000)))));
+
+    assertThat(sut.get("alice").getBalance()).isEqualTo(steem(7500));
+    assertThat(sut.get("bob").getBalance()).isEqualTo(steem(3500));
+    assertThat(sut.getDriftedAccounts()).isEmpty();
+  }
+
+  @Test
+  public void apply_alreadySynced() {
+    sut.apply(block(100, ImmutableList.of(
+        ImmutableList.of("transfer", ImmutableMap.of(
+            "from", "alice", "to", "bob", "amount", "2.500 STEEM", "memo", "")))));
+
+    assertThat(sut.get("alice").getBalance()).isEqualTo(steem(10000));
+    assertThat(sut.get("bob").getBalance()).isEqualTo(steem(1000));
+  }
+
+  @Test
+  public void apply_drift() {
+    sut.apply(block(101, ImmutableList.of(
+        ImmutableList.of("transfer_to_vesting", ImmutableMap.of(
+            "from", "alice", "to", "", "amount", "1.000 STEEM")))));
+
+    assertThat(sut.getDriftedAccounts()).containsExactly("alice");
+
+    sut.resync().blockingAwait();
+
+    assertThat(sut.getDriftedAccounts()).isEmpty();
+    assertThat(sut.get("alice").getBalance()).isEqualTo(steem(10000));
+  }
+
+  @Test
+  public void apply_blocksSkipped() {
+    sut.apply(block(101, ImmutableList.of()));
+    sut.apply(block(103, ImmutableList.of()));
+
+    assertThat(sut.getDriftedAccounts()).containsExactlyInAnyOrder("alice", "bob");
+  }
+
+  @Test
+  public void follow_virtualOperations() {
+    given(client.call(argThat(parameter -> isMethod(parameter, "enumerate_virtual_ops"))))
+        .willReturn(Single.just(SteemCallResult.of(ImmutableMap.of("ops", ImmutableList.of(
+            ImmutableMap.of("block", 101, "op", ImmutableList.of("fill_vesting_withdraw",
+                ImmutableMap.of("from_account", "alice", "to_account", "bob",
+                    "withdrawn", "1000.000000 VESTS", "deposited", "0.500 STEEM"))))))));
+    SteemAccountStateCache sut = new SteemAccountStateCache(client,
+        new SteemChainStateProvider(client), new SteemVirtualOperationPipeline(
+            ImmutableList.of(client), 1, 1, Schedulers.trampoline()));
+    sut.track(ImmutableList.of("alice", "bob")).blockingAwait();
+
+    sut.follow(Flowable.just(block(101, ImmutableList.of())));
+
+    assertThat(sut.get("bob").getBalance()).isEqualTo(steem(1500));
+    assertThat(sut.get("alice").getVestingShares())
+        .isEqualTo(SteemAsset.of(-1000000000, SteemAssetSymbol.VESTS));
+    assertThat(sut.getDriftedAccounts()).isEmpty();
+  }
+
+  @Test
+  public void follow_virtualOperationsFailed() {
+    given(client.call(argThat(parameter -> isMethod(parameter, "enumerate_virtual_ops"))))
+        .willReturn(Single.error(new IllegalStateException("error")));
+    given(client.call(argThat(parameter -> isMethod(parameter, "find_accounts"))))
+        .willReturn(Single.just(SteemCallResult.of(ImmutableList.of(
+            account("alice", "10.000 STEEM"), account("bob", "1.000 STEEM")))),
+            Single.error(new IllegalStateException("error")));
+    SteemAccountStateCache sut = new SteemAccountStateCache(client,
+        new SteemChainStateProvider(client), new SteemVirtualOperationPipeline(
+            ImmutableList.of(client), 1, 1, Schedulers.trampoline()));
+    sut.track(ImmutableList.of("alice", "bob")).blockingAwait();
+
+    sut.follow(Flowable.just(block(101, ImmutableList.of())));
+
+    assertThat(sut.getDriftedAccounts()).containsExactlyInAnyOrder("alice", "bob");
+  }
+
+  private static SteemCallResult dynamicGlobalProperties(long headBlockNumber) {
+    String headBlockId = String.format("%08x", headBlockNumber)
+        + "aabbccdd000000000000000000000000";
+    return SteemCallResult.of(ImmutableMap.of(
+        "head_block_number", headBlockNumber,
+        "head_block_id", headBlockId,
+        "time", "2018-09-15T08:25:40"));
+  }
+
+  private static SteemBlock block(long number, List<Object> operations) {
+    return SteemBlock.fromResult(ImmutableMap.of(
+        "block_id", String.format("%08x", number) + "00000000000000000000000000000000",
+        "previous", String.format("%08x", number - 1) + "00000000000000000000000000000000",
+        "timestamp", "2018-09-15T08:25:40",
+        "transactions", ImmutableList.of(ImmutableMap.of("operations", operations))));
+  }
+
+  private static Map<String, Object> account(String name, String balance) {
+    return ImmutableMap.<String, Object>builder()
+        .put("name", name)
+        .put("balance", balance)
+        .put("sbd_balance", "0.000 SBD")
+        .put("vesting_shares", "0.000000 VESTS")
+        .put("reward_steem_balance", "0.000 STEEM")
+        .put("reward_sbd_balance", "0.000 SBD")
+        .put("reward_vesting_balance", "0.000000 VESTS")
+        .build();
+  }
+
+  private static SteemAsset steem(long amount) {
+    return SteemAsset.of(amount, SteemAssetSymbol.STEEM);
+  }
+
+  private static boolean isMethod(SteemCallParameter parameter, String method) {
+    return parameter != null && parameter.getMethod().equals(method);
+  }
+}
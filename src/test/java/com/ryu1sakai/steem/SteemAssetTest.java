@@ -0,0 +1,71 @@
+package com.ryu1sakai.steem;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.Test;
+
+public class SteemAssetTest {
+
+  @Test
+  public void parse() {
+    assertThat(SteemAsset.parse("1.000 STEEM"))
+        .isEqualTo(SteemAsset.of(1000, SteemAssetSymbol.STEEM));
+    assertThat(SteemAsset.parse("0.001 SBD")).isEqualTo(SteemAsset.of(1, SteemAssetSymbol.SBD));
+    assertThat(SteemAsset.parse("123456.789012 VESTS"))
+        .isEqualTo(SteemAsset.of(123456789012L, SteemAssetSymbol.VESTS));
+    assertThat(SteemAsset.parse("-2.5 STEEM"))
+        .isEqualTo(SteemAsset.of(-2500, SteemAssetSymbol.STEEM));
+    assertThat(SteemAsset.parse("7 STEEM")).isEqualTo(SteemAsset.of(7000, SteemAssetSymbol.STEEM));
+  }
+
+  @Test
+  public void parse_malformed() {
+    for (String malformed : new String[] {
+        "1.000", "1.000 STEM", "1.0000 STEEM", "1..0 STEEM", "a.000 STEEM", " STEEM",
+        "99999999999999999999.000 STEEM"}) {
+      assertThatThrownBy(() -> SteemAsset.parse(malformed))
+          .as(malformed)
+          .isInstanceOfAny(IllegalArgumentException.class, ArithmeticException.class);
+    }
+  }
+
+  @Test
+  public void fromNaiObject() {
+    assertThat(SteemAsset.fromJson(ImmutableMap.of(
+        "amount", "1000", "precision", 3, "nai", "@@000000021")))
+        .isEqualTo(SteemAsset.of(1000, SteemAssetSymbol.STEEM));
+    assertThatThrownBy(() -> SteemAsset.fromJson(ImmutableMap.of(
+        "amount", "1000", "precision", 6, "nai", "@@000000021")))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  public void toLegacyString() {
+    assertThat(SteemAsset.of(1000, SteemAssetSymbol.STEEM).toLegacyString())
+        .isEqualTo("1.000 STEEM");
+    assertThat(SteemAsset.of(5, SteemAssetSymbol.SBD).toLegacyString()).isEqualTo("0.005 SBD");
+    assertThat(SteemAsset.of(0, SteemAssetSymbol.VESTS).toLegacyString())
+        .isEqualTo("0.000000 VESTS");
+    assertThat(SteemAsset.of(-1500, SteemAssetSymbol.STEEM).toLegacyString())
+        .isEqualTo("-1.500 STEEM");
+    assertThat(SteemAsset.of(-5, SteemAssetSymbol.STEEM).toLegacyString())
+        .isEqualTo("-0.005 STEEM");
+    assertThat(SteemAsset.of(Long.MIN_VALUE, SteemAssetSymbol.STEEM).toLegacyString())
+        .isEqualTo("-9223372036854775.808 STEEM");
+  }
+
+  @Test
+  public void arithmetic() {
+    SteemAsset one = SteemAsset.of(1000, SteemAssetSymbol.STEEM);
+
+    assertThat(one.add(one).multiply(3).subtract(one))
+        .isEqualTo(SteemAsset.of(5000, SteemAssetSymbol.STEEM));
+    assertThat(one.negate().signum()).isEqualTo(-1);
+    assertThatThrownBy(() -> SteemAsset.of(Long.MAX_VALUE, SteemAssetSymbol.STEEM).add(one))
+        .isInstanceOf(ArithmeticException.class);
+    assertThatThrownBy(() -> one.add(SteemAsset.of(1, SteemAssetSymbol.SBD)))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+}
@@ -0,0 +1,221 @@
+package com.ryu1sakai.steem;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.BDDMockito.given;
+
+import com.google.api.client.json.JsonFactory;
+import com.google.api.client.json.jackson2.JacksonFactory;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.ryu1sakai.steem.client.SteemCallParameter;
+import com.ryu1sakai.steem.client.SteemCallResult;
+import com.ryu1sakai.steem.client.SteemClient;
+import com.ryu1sakai.steem.client.SteemWebSocketClient;
+import com.ryu1sakai.steem.protocol.SteemBlock;
+import io.reactivex.Single;
+import io.reactivex.schedulers.Schedulers;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import okhttp3.OkHttpClient;
+import okhttp3.WebSocket;
+import okhttp3.WebSocketListener;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+public class SteemBlockSubscriberTest {
+
+  private static final JsonFactory JSON_FACTORY = new JacksonFactory();
+
+  @Rule
+  public MockitoRule mockito = MockitoJUnit.rule();
+
+  @Mock
+  private SteemClient client;
+
+  private final MockWebServer server = new MockWebServer();
+
+  @After
+  public void tearDown() throws Exception {
+    server.shutdown();
+  }
+
+  @Test
+  public void subscribe_polling() {
+    // set up
+    String now = Instant.now().truncatedTo(ChronoUnit.SECONDS).toString().replace("Z", "");
+    given(client.call(argThat(parameter -> isMethod(parameter, "get_dynamic_global_properties"))))
+        .willReturn(Single.just(SteemCallResult.of(ImmutableMap.of(
+            "head_block_number", 101,
+            "head_block_id", blockId(101),
+            "time", now))));
+    given(client.call(argThat(parameter -> isMethod(parameter, "get_block"))))
+        .willAnswer(invocation -> {
+          SteemCallParameter parameter = invocation.getArgument(0);
+          long number = ((Number) parameter.getAppbaseParams().get("block_num")).longValue();
+          return Single.just(SteemCallResult.of(block(number)));
+        });
+    SteemBlockSubscriber sut = new SteemBlockSubscriber(client);
+
+    // execute
+    List<SteemBlock> actual = sut.subscribe(99).take(3).toList()
+        .timeout(5, TimeUnit.SECONDS).blockingGet();
+
+    // verify
+    assertThat(actual).extracting(SteemBlock::getNumber).containsExactly(99L, 100L, 101L);
+  }
+
+  @Test
+  public void subscribe_scheduler() {
+    // set up
+    List<String> threads = new CopyOnWriteArrayList<>();
+    String now = Instant.now().truncatedTo(ChronoUnit.SECONDS).toString().replace("Z", "");
+    given(client.call(argThat(parameter -> isMethod(parameter, "get_dynamic_global_properties"))))
+        .willAnswer(invocation -> {
+          threads.add(Thread.currentThread().getName());
+          return Single.just(SteemCallResult.of(ImmutableMap.of(
+              "head_block_number", 101,
+              "head_block_id", blockId(101),
+              "time", now)));
+        });
+    given(client.call(argThat(parameter -> isMethod(parameter, "get_block"))))
+        .willAnswer(invocation -> Single.fromCallable(() -> {
+          threads.add(Thread.currentThread().getName());
+          return SteemCallResult.of(block(101));
+        }));
+    ExecutorService executor = Executors.newSingleThreadExecutor(
+        runnable -> new Thread(runnable, "subscriber"));
+
+    // execute
+    try {
+      new SteemBlockSubscriber(client, Schedulers.from(executor)).subscribe(101).take(1)
+          .timeout(5, TimeUnit.SECONDS).blockingSubscribe();
+    } finally {
+      executor.shutdown();
+    }
+
+    // verify
+    assertThat(threads).isNotEmpty().containsOnly("subscriber");
+  }
+
+  @Test
+  public void subscribe_notices() throws Exception {
+    // set up
+    FakeNode node = new FakeNode(true);
+    server.enqueue(new MockResponse().withWebSocketUpgrade(node));
+
+    // execute
+    List<SteemBlock> actual;
+    try (SteemWebSocketClient pushClient = webSocketClient()) {
+      actual = new SteemBlockSubscriber(pushClient).subscribe(100).take(2).toList()
+          .timeout(5, TimeUnit.SECONDS).blockingGet();
+    }
+
+    // verify
+    assertThat(actual).extracting(SteemBlock::getNumber).containsExactly(100L, 101L);
+    assertThat(node.methods).contains("database_api.set_block_applied_callback")
+        .doesNotContain("database_api.get_dynamic_global_properties");
+  }
+
+  @Test
+  public void subscribe_noticesUnsupported() throws Exception {
+    // set up
+    FakeNode node = new FakeNode(false);
+    server.enqueue(new MockResponse().withWebSocketUpgrade(node));
+
+    // execute
+    List<SteemBlock> actual;
+    try (SteemWebSocketClient pushClient = webSocketClient()) {
+      actual = new SteemBlockSubscriber(pushClient).subscribe(100).take(2).toList()
+          .timeout(5, TimeUnit.SECONDS).blockingGet();
+    }
+
+    // verify
+    assertThat(actual).extracting(SteemBlock::getNumber).containsExactly(100L, 101L);
+    assertThat(node.methods).contains("database_api.set_block_applied_callback",
+        "database_api.get_dynamic_global_properties");
+  }
+
+  private SteemWebSocketClient webSocketClient() {
+    return new SteemWebSocketClient(new OkHttpClient(), JSON_FACTORY,
+        server.url("/").toString().replaceFirst("^http", "ws"));
+  }
+
+  /**
+   * Node at block 101, which pushes a notice of it once a callback is set if it supports that.
+   */
+  private static final class FakeNode extends WebSocketListener {
+    private final boolean callbackSupported;
+    private final List<Object> methods = new CopyOnWriteArrayList<>();
+
+    FakeNode(boolean callbackSupported) {
+      this.callbackSupported = callbackSupported;
+    }
+
+    @Override
+    public void onMessage(WebSocket webSocket, String text) {
+      try {
+        Map<?, ?> request = JSON_FACTORY.fromString(text, Map.class);
+        Object method = request.get("method");
+        methods.add(method);
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("jsonrpc", "2.0");
+        response.put("id", request.get("id"));
+        if ("database_api.set_block_applied_callback".equals(method) && callbackSupported) {
+          response.put("result", ImmutableMap.of());
+          webSocket.send(JSON_FACTORY.toString(response));
+          webSocket.send(JSON_FACTORY.toString(ImmutableMap.of("method", "notice",
+              "params", ImmutableList.of(0, ImmutableList.of(ImmutableMap.of(
+                  "previous", blockId(100), "timestamp", "2018-09-15T08:25:40"))))));
+          return;
+        }
+        if ("database_api.get_dynamic_global_properties".equals(method)) {
+          response.put("result", ImmutableMap.of(
+              "head_block_number", 101,
+              "head_block_id", blockId(101),
+              "time", Instant.now().truncatedTo(ChronoUnit.SECONDS).toString().replace("Z", "")));
+        } else if ("block_api.get_block".equals(method)) {
+          long number = ((Number) ((Map<?, ?>) request.get("params")).get("block_num"))
+              .longValue();
+          response.put("result", ImmutableMap.of("block", block(number)));
+        } else {
+          response.put("error", ImmutableMap.of(
+              "code", -32601, "message", "Could not find method " + method));
+        }
+        webSocket.send(JSON_FACTORY.toString(response));
+      } catch (IOException e) {
+        throw new AssertionError(e);
+      }
+    }
+  }
+
+  private static Map<String, Object> block(long number) {
+    return ImmutableMap.of(
+        "block_id", blockId(number),
+        "previous", blockId(number - 1),
+        "timestamp", "2018-09-15T08:25:40",
+        "transactions", ImmutableList.of());
+  }
+
+  private static String blockId(long number) {
+    return String.format("%08x", number) + "00000000000000000000000000000000";
+  }
+
+  private static boolean isMethod(SteemCallParameter parameter, String method) {
+    return parameter != null && parameter.getMethod().equals(method);
+  }
+}
@@ -0,0 +1,181 @@
+package com.ryu1sakai.steem;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.times;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.ryu1sakai.steem.client.SteemCallParameter;
+import com.ryu1sakai.steem.client.SteemCallResult;
+import com.ryu1sakai.steem.client.SteemClient;
+import com.ryu1sakai.steem.client.exception.SteemRpcErrorException;
+import com.ryu1sakai.steem.crypto.SteemPrivateKey;
+import com.ryu1sakai.steem.protocol.SteemOperation;
+import com.ryu1sakai.steem.protocol.SteemTransferOperation;
+import io.reactivex.Flowable;
+import io.reactivex.Single;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.apache.commons.lang3.RandomStringUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+public class SteemBroadcastPipelineTest {
+
+  private static final Map<String, Object> DYNAMIC_GLOBAL_PROPERTIES = ImmutableMap.of(
+      "head_block_number", 26000000,
+      "head_block_id", "018cba80c1b4f5dd5e2a2fe9bd18ad8ab2e3dfd0",
+      "time", "2018-09-15T08:25:40");
+
+  @Rule
+  public MockitoRule mockito = MockitoJUnit.rule();
+
+  @Mock
+  private SteemClient client;
+
+  private SteemCommit commit;
+
+  @Before
+  public void setUp() {
+    SteemWallet wallet = SteemWallet.of(SteemPrivateKey.fromLogin("alice", "active", "pw"));
+    // Never cache the chain state, so that fetches per batch can be counted
+    SteemChainStateProvider chainStateProvider
+        = new SteemChainStateProvider(client, Duration.ofSeconds(3), Duration.ZERO);
+    commit = new SteemCommit(client, SteemAccount.of("alice"), wallet, chainStateProvider);
+    given(client.call(argThat(SteemBroadcastPipelineTest::isGetDynamicGlobalProperties)))
+        .willReturn(Single.just(SteemCallResult.of(DYNAMIC_GLOBAL_PROPERTIES)));
+    given(client.call(argThat(SteemBroadcastPipelineTest::isBroadcastTransaction)))
+        .willReturn(Single.just(SteemCallResult.of(ImmutableMap.of())));
+  }
+
+  @Test
+  public void pack() {
+    SteemBroadcastPipeline sut = new SteemBroadcastPipeline(
+        commit, ImmutableList.of(client), 1024, 3, 100, 1);
+
+    List<SteemOperation> operations = transfers(7, 8);
+    List<List<SteemOperation>> actual = sut.pack(operations);
+
+    assertThat(actual).extracting(List::size).containsExactly(3, 3, 1);
+    assertThat(actual.stream().flatMap(List::stream)).containsExactlyElementsOf(operations);
+  }
+
+  @Test
+  public void pack_sizeLimit() {
+    // 4 transfers with 300-byte memos don't fit in one 1024-byte transaction
+    SteemBroadcastPipeline sut = new SteemBroadcastPipeline(
+        commit, ImmutableList.of(client), 1024, 100, 100, 1);
+
+    List<List<SteemOperation>> actual = sut.pack(transfers(4, 300));
+
+    assertThat(actual).extracting(List::size).containsExactly(2, 2);
+  }
+
+  @Test
+  public void broadcast() {
+    SteemBroadcastPipeline sut = new SteemBroadcastPipeline(
+        commit, ImmutableList.of(client), 64 * 1024, 10, 50, 4);
+
+    List<SteemOperation> operations = transfers(120, 8);
+    List<SteemBroadcastResult> actual
+        = sut.broadcast(Flowable.fromIterable(operations)).toList().blockingGet();
+
+    assertThat(actual).hasSize(operations.size()).allMatch(SteemBroadcastResult::isSuccess);
+    assertThat(actual).extracting(SteemBroadcastResult::getOperation)
+        .containsExactlyInAnyOrderElementsOf(operations);
+    // One chain state for each batch of 50 operations, one broadcast for each 10 operations
+    then(client).should(times(3))
+        .call(argThat(SteemBroadcastPipelineTest::isGetDynamicGlobalProperties));
+    then(client).should(times(12))
+        .call(argThat(SteemBroadcastPipelineTest::isBroadcastTransaction));
+  }
+
+  @Test
+  public void broadcast_concurrent() {
+    // Each broadcast waits for the other one, so both fail unless they overlap
+    CountDownLatch latch = new CountDownLatch(2);
+    given(client.call(argThat(SteemBroadcastPipelineTest::isBroadcastTransaction)))
+        .willReturn(Single.fromCallable(() -> {
+          latch.countDown();
+          if (!latch.await(5, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("Broadcasts did not overlap");
+          }
+          return SteemCallResult.of(ImmutableMap.of());
+        }));
+    SteemBroadcastPipeline sut = new SteemBroadcastPipeline(
+        commit, ImmutableList.of(client), 64 * 1024, 1, 50, 2);
+
+    List<SteemBroadcastResult> actual
+        = sut.broadcast(Flowable.fromIterable(transfers(2, 8))).toList().blockingGet();
+
+    assertThat(actual).hasSize(2).allMatch(SteemBroadcastResult::isSuccess);
+  }
+
+  @Test
+  public void broadcast_failure() {
+    given(client.call(argThat(SteemBroadcastPipelineTest::isBroadcastTransaction)))
+        .willReturn(Single.error(new SteemRpcErrorException("error")));
+    SteemBroadcastPipeline sut = new SteemBroadcastPipeline(
+        commit, ImmutableList.of(client), 64 * 1024, 10, 50, 4);
+
+    List<SteemBroadcastResult> actual
+        = sut.broadcast(Flowable.fromIterable(transfers(15, 8))).toList().blockingGet();
+
+    assertThat(actual).hasSize(15).noneMatch(SteemBroadcastResult::isSuccess);
+    assertThat(actual).extracting(SteemBroadcastResult::getTransactionId).doesNotContainNull();
+  }
+
+  @Test
+  public void broadcast_chainStateFailure() {
+    // The first batch fails to fetch the chain state, and the second one goes on
+    given(client.call(argThat(SteemBroadcastPipelineTest::isGetDynamicGlobalProperties)))
+        .willReturn(Single.error(new SteemRpcErrorException("error")),
+            Single.just(SteemCallResult.of(DYNAMIC_GLOBAL_PROPERTIES)));
+    SteemBroadcastPipeline sut = new SteemBroadcastPipeline(
+        commit, ImmutableList.of(client), 64 * 1024, 10, 10, 4);
+
+    List<SteemOperation> operations = transfers(15, 8);
+    List<SteemBroadcastResult> actual
+        = sut.broadcast(Flowable.fromIterable(operations)).toList().blockingGet();
+
+    assertThat(actual).hasSize(15);
+    List<SteemBroadcastResult> failed = actual.stream()
+        .filter(result -> !result.isSuccess()).collect(Collectors.toList());
+    assertThat(failed).extracting(SteemBroadcastResult::getOperation)
+        .containsExactlyInAnyOrderElementsOf(operations.subList(0, 10));
+    assertThat(failed).allSatisfy(result -> {
+      assertThat(result.getTransactionId()).isNull();
+      assertThat(result.getError()).isInstanceOf(SteemRpcErrorException.class);
+    });
+    then(client).should(times(1))
+        .call(argThat(SteemBroadcastPipelineTest::isBroadcastTransaction));
+  }
+
+  private static List<SteemOperation> transfers(int count, int memoLength) {
+    return IntStream.range(0, count)
+        .mapToObj(i -> SteemTransferOperation.of("alice", "bob" + i,
+            SteemAsset.of(i + 1, SteemAssetSymbol.STEEM),
+            RandomStringUtils.randomAlphanumeric(memoLength)))
+        .collect(Collectors.toList());
+  }
+
+  private static boolean isGetDynamicGlobalProperties(SteemCallParameter parameter) {
+    return parameter != null && parameter.getMethod().equals("get_dynamic_global_properties");
+  }
+
+  private static boolean isBroadcastTransaction(SteemCallParameter parameter) {
+    return parameter != null && parameter.getMethod().equals("broadcast_transaction");
+  }
+}
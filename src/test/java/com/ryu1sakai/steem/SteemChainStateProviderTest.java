@@ -0,0 +1,115 @@
+package com.ryu1sakai.steem;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.times;
+
+import com.google.common.collect.ImmutableMap;
+import com.ryu1sakai.steem.client.SteemCallResult;
+import com.ryu1sakai.steem.client.SteemClient;
+import com.ryu1sakai.steem.client.exception.SteemRpcErrorException;
+import com.ryu1sakai.steem.protocol.SteemChainState;
+import io.reactivex.Single;
+import java.time.Duration;
+import java.time.Instant;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+public class SteemChainStateProviderTest {
+
+  @Rule
+  public MockitoRule mockito = MockitoJUnit.rule();
+
+  @Mock
+  private SteemClient client;
+
+  @Test
+  public void get_cached() {
+    given(client.call(any())).willReturn(Single.just(result(100)));
+    SteemChainStateProvider sut
+        = new SteemChainStateProvider(client, Duration.ofSeconds(3), Duration.ofMinutes(1));
+
+    SteemChainState first = sut.get().blockingGet();
+    SteemChainState second = sut.get().blockingGet();
+
+    assertThat(first.getHeadBlockNumber()).isEqualTo(100);
+    assertThat(second).isSameAs(first);
+    then(client).should(times(1)).call(any());
+  }
+
+  @Test
+  public void observeBlock() {
+    given(client.call(any())).willReturn(Single.just(result(100)));
+    SteemChainStateProvider sut
+        = new SteemChainStateProvider(client, Duration.ofSeconds(3), Duration.ofMinutes(1));
+    sut.get().blockingGet();
+
+    sut.observeBlock(101, "00000065aabbccdd000000000000000000000000",
+        Instant.parse("2018-09-15T08:25:43Z"));
+    sut.observeBlock(99, "00000063aabbccdd000000000000000000000000",
+        Instant.parse("2018-09-15T08:25:37Z"));
+
+    assertThat(sut.get().blockingGet().getHeadBlockNumber()).isEqualTo(101);
+    then(client).should(times(1)).call(any());
+  }
+
+  @Test
+  public void observeBlockNumber() {
+    given(client.call(any()))
+        .willReturn(Single.just(result(100)), Single.just(result(102)));
+    SteemChainStateProvider sut
+        = new SteemChainStateProvider(client, Duration.ofSeconds(3), Duration.ofMinutes(1));
+    sut.get().blockingGet();
+
+    sut.observeBlockNumber(100);
+    assertThat(sut.get().blockingGet().getHeadBlockNumber()).isEqualTo(100);
+
+    sut.observeBlockNumber(102);
+    assertThat(sut.get().blockingGet().getHeadBlockNumber()).isEqualTo(102);
+    then(client).should(times(2)).call(any());
+  }
+
+  @Test
+  public void get_laggingNode() {
+    given(client.call(any()))
+        .willReturn(Single.just(result(100)), Single.just(result(100)), Single.just(result(103)));
+    SteemChainStateProvider sut
+        = new SteemChainStateProvider(client, Duration.ofSeconds(3), Duration.ofMinutes(1));
+    sut.get().blockingGet();
+    sut.observeBlock(101, "00000065aabbccdd000000000000000000000000",
+        Instant.parse("2018-09-15T08:25:43Z"));
+
+    sut.observeBlockNumber(102);
+    assertThat(sut.get().blockingGet().getHeadBlockNumber()).isEqualTo(101);
+    assertThat(sut.get().blockingGet().getHeadBlockNumber()).isEqualTo(101);
+    then(client).should(times(2)).call(any());
+  }
+
+  @Test
+  public void get_lazy() {
+    given(client.call(any()))
+        .willReturn(Single.error(new SteemRpcErrorException("error")), Single.just(result(100)));
+    SteemChainStateProvider sut
+        = new SteemChainStateProvider(client, Duration.ofSeconds(3), Duration.ofMinutes(1));
+
+    Single<SteemChainState> actual = sut.get();
+    then(client).shouldHaveZeroInteractions();
+
+    assertThat(actual.retry(1).blockingGet().getHeadBlockNumber()).isEqualTo(100);
+    then(client).should(times(2)).call(any());
+  }
+
+  private static SteemCallResult result(long headBlockNumber) {
+    String headBlockId = String.format("%08x", headBlockNumber)
+        + "aabbccdd000000000000000000000000";
+    return SteemCallResult.of(ImmutableMap.of(
+        "head_block_number", headBlockNumber,
+        "head_block_id", headBlockId,
+        "time", "2018-09-15T08:25:40"));
+  }
+}
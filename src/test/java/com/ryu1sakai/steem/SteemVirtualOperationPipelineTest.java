@@ -0,0 +1,177 @@
+package com.ryu1sakai.steem;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.never;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.ryu1sakai.steem.client.SteemCallParameter;
+import com.ryu1sakai.steem.client.SteemCallResult;
+import com.ryu1sakai.steem.client.SteemClient;
+import com.ryu1sakai.steem.client.SteemRpcErrorAction;
+import com.ryu1sakai.steem.client.SteemRpcErrorCodes;
+import com.ryu1sakai.steem.client.exception.SteemRpcErrorException;
+import com.ryu1sakai.steem.protocol.SteemAppliedOperation;
+import io.reactivex.Single;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+public class SteemVirtualOperationPipelineTest {
+
+  @Rule
+  public MockitoRule mockito = MockitoJUnit.rule();
+
+  @Mock
+  private SteemClient client1;
+
+  @Mock
+  private SteemClient client2;
+
+  @Test
+  public void virtualOperations_enumerate() {
+    // set up
+    given(client1.call(argThat(parameter -> isMethod(parameter, "enumerate_virtual_ops"))))
+        .willAnswer(invocation -> {
+          SteemCallParameter parameter = invocation.getArgument(0);
+          long begin = (Long) parameter.getAppbaseParams().get("block_range_begin");
+          return Single.just(SteemCallResult.of(begin == 10
+              ? ImmutableMap.of("ops", ImmutableList.of(item(10, "author_reward"),
+                  item(10, "curation_reward")), "next_block_range_begin", 11)
+              : ImmutableMap.of("ops", ImmutableList.of(item(11, "producer_reward")),
+                  "next_block_range_begin", 0)));
+        });
+    SteemVirtualOperationPipeline sut
+        = new SteemVirtualOperationPipeline(ImmutableList.of(client1));
+
+    // execute
+    List<SteemAppliedOperation> actual = sut.virtualOperations(10, 11).toList().blockingGet();
+
+    // verify
+    assertThat(actual)
+        .extracting(SteemAppliedOperation::getBlockNumber, SteemAppliedOperation::getPosition,
+            SteemAppliedOperation::getType, SteemAppliedOperation::isVirtual)
+        .containsExactly(
+            tuple(10L, 0, "author_reward", true),
+            tuple(10L, 1, "curation_reward", true),
+            tuple(11L, 0, "producer_reward", true));
+  }
+
+  @Test
+  public void virtualOperations_concurrent() {
+    // Each chunk waits for the other one, so both fail unless they overlap
+    CountDownLatch latch = new CountDownLatch(2);
+    given(client1.call(argThat(parameter -> isMethod(parameter, "enumerate_virtual_ops"))))
+        .willAnswer(invocation -> {
+          SteemCallParameter parameter = invocation.getArgument(0);
+          long begin = (Long) parameter.getAppbaseParams().get("block_range_begin");
+          return Single.fromCallable(() -> {
+            latch.countDown();
+            if (!latch.await(5, TimeUnit.SECONDS)) {
+              throw new IllegalStateException("Chunks were not fetched concurrently");
+            }
+            return SteemCallResult.of(ImmutableMap.of(
+                "ops", ImmutableList.of(item(begin, "producer_reward")),
+                "next_block_range_begin", 0));
+          });
+        });
+    SteemVirtualOperationPipeline sut
+        = new SteemVirtualOperationPipeline(ImmutableList.of(client1), 1, 2);
+
+    List<SteemAppliedOperation> actual = sut.virtualOperations(10, 11).toList().blockingGet();
+
+    assertThat(actual).extracting(SteemAppliedOperation::getBlockNumber)
+        .containsExactly(10L, 11L);
+  }
+
+  @Test
+  public void virtualOperations_failedOnAllNodes() {
+    // An error other than a missing method is not taken as lack of enumerate_virtual_ops
+    given(client1.call(argThat(parameter -> isMethod(parameter, "enumerate_virtual_ops"))))
+        .willReturn(Single.error(new SteemRpcErrorException("Unable to acquire database lock",
+            SteemRpcErrorCodes.JSON_RPC_ERROR_DURING_CALL, SteemRpcErrorAction.FAIL)));
+    SteemVirtualOperationPipeline sut
+        = new SteemVirtualOperationPipeline(ImmutableList.of(client1));
+
+    sut.virtualOperations(10, 11).test().awaitDone(5, TimeUnit.SECONDS)
+        .assertError(SteemRpcErrorException.class);
+    then(client1).should(never())
+        .call(argThat(parameter -> isMethod(parameter, "get_ops_in_block")));
+  }
+
+  @Test
+  public void constructor_invalid() {
+    assertThatThrownBy(() -> new SteemVirtualOperationPipeline(ImmutableList.of(client1), 0, 2))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> new SteemVirtualOperationPipeline(ImmutableList.of(client1), 1, 0))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  public void operations_getOpsInBlock() {
+    // set up
+    for (SteemClient client : ImmutableList.of(client1, client2)) {
+      given(client.call(argThat(parameter -> isMethod(parameter, "enumerate_virtual_ops"))))
+          .willReturn(Single.error(new SteemRpcErrorException("Could not find method",
+              SteemRpcErrorCodes.JSON_RPC_METHOD_NOT_FOUND, SteemRpcErrorAction.FAIL)));
+      given(client.call(argThat(parameter -> isMethod(parameter, "get_ops_in_block"))))
+          .willAnswer(invocation -> {
+            long number = blockNumberOf(invocation.getArgument(0));
+            return Single.just(SteemCallResult.of(ImmutableList.of(ImmutableMap.of(
+                "block", number,
+                "op", ImmutableList.of("fill_order", ImmutableMap.of("current_owner", "a"))))));
+          });
+      given(client.call(argThat(parameter -> isMethod(parameter, "get_block"))))
+          .willAnswer(invocation -> Single.just(SteemCallResult.of(
+              block(blockNumberOf(invocation.getArgument(0))))));
+    }
+    SteemVirtualOperationPipeline sut
+        = new SteemVirtualOperationPipeline(ImmutableList.of(client1, client2), 1, 2);
+
+    // execute
+    List<SteemAppliedOperation> actual = sut.operations(1, 2).toList().blockingGet();
+
+    // verify
+    assertThat(actual)
+        .extracting(SteemAppliedOperation::getBlockNumber, SteemAppliedOperation::getType,
+            SteemAppliedOperation::isVirtual)
+        .containsExactly(
+            tuple(1L, "transfer", false),
+            tuple(1L, "fill_order", true),
+            tuple(2L, "transfer", false),
+            tuple(2L, "fill_order", true));
+  }
+
+  private static Map<String, Object> item(long block, String type) {
+    return ImmutableMap.of("block", block,
+        "op", ImmutableMap.of("type", type + "_operation", "value", ImmutableMap.of()));
+  }
+
+  private static Map<String, Object> block(long number) {
+    return ImmutableMap.of(
+        "block_id", String.format("%08x", number) + "00000000000000000000000000000000",
+        "previous", String.format("%08x", number - 1) + "00000000000000000000000000000000",
+        "timestamp", "2018-09-15T08:25:40",
+        "transactions", ImmutableList.of(ImmutableMap.of("operations", ImmutableList.of(
+            ImmutableList.of("transfer", ImmutableMap.of("from", "a", "to", "b"))))));
+  }
+
+  private static long blockNumberOf(SteemCallParameter parameter) {
+    return ((Number) parameter.getAppbaseParams().get("block_num")).longValue();
+  }
+
+  private static boolean isMethod(SteemCallParameter parameter, String method) {
+    return parameter != null && parameter.getMethod().equals(method);
+  }
+}
@@ -19,6 +19,7 @@ import com.google.api.client.http.HttpStatusCodes;
 import com.google.api.client.http.HttpTransport;
 import com.google.api.client.http.json.JsonHttpContent;
 import com.google.api.client.json.JsonFactory;
+import com.google.api.client.json.jackson2.JacksonFactory;
 import com.google.api.client.testing.json.MockJsonFactory;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
@@ -26,13 +27,20 @@ import com.ryu1sakai.steem.client.exception.RetryExceededException;
 import com.ryu1sakai.steem.client.exception.SteemRpcErrorException;
 import com.ryu1sakai.steem.client.model.SteemRpcRequest;
 import com.ryu1sakai.steem.client.model.SteemRpcResponse;
+import com.ryu1sakai.steem.client.trace.SteemSpanRecord;
+import com.ryu1sakai.steem.client.trace.SteemTracer;
 import io.reactivex.Single;
+import io.reactivex.observers.TestObserver;
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
 import org.apache.commons.lang3.RandomStringUtils;
@@ -157,6 +165,110 @@ public class SteemHttpClientTest {
         httpContents.get(1), new JsonHttpContent(JSON_FACTORY, parameter.forAppbaseApi()));
   }
 
+  @Test
+  public void call_traced() throws Exception {
+    // set up
+    GenericUrl url = new GenericUrl("https://example.net/example");
+    SteemNode node = new SteemNode().setUrl(url).setAppbaseApiSupported(true);
+
+    SteemRpcResponse.Error legacyError
+        = new SteemRpcResponse.Error().setCode(SteemRpcErrorCodes.JSON_RPC_LEGACY_NODE_ERROR);
+    SteemRpcResponse response1 = new SteemRpcResponse().setError(legacyError);
+    SteemRpcResponse response2 = new SteemRpcResponse().setResult("result");
+    // Parsed for real, to count the bytes read
+    JsonFactory jsonFactory = new JacksonFactory();
+    byte[] content1 = jsonFactory.toByteArray(response1);
+    byte[] content2 = jsonFactory.toByteArray(response2);
+
+    HttpResponse httpResponse = mock(HttpResponse.class);
+    given(httpRequest.execute()).willReturn(httpResponse);
+    given(httpResponse.getStatusCode()).willReturn(HttpStatusCodes.STATUS_CODE_OK);
+    given(httpResponse.getContent()).willReturn(
+        new ByteArrayInputStream(content1), new ByteArrayInputStream(content2));
+    given(httpResponse.getContentCharset()).willReturn(StandardCharsets.UTF_8);
+
+    List<SteemSpanRecord> spans = new CopyOnWriteArrayList<>();
+    SteemHttpClient sut = new SteemHttpClient(httpTransport, jsonFactory,
+        ImmutableList.of(node), 1, SteemRpcErrorClassifier.defaults(),
+        new SteemTracer(1, spans::add));
+
+    // execute
+    SteemCallParameter parameter = SteemCallParameter.of("database_api", "get_config",
+        ImmutableMap.of(), ImmutableList.of());
+
+    sut.call(parameter).test().assertResult(SteemCallResult.of("result"));
+
+    // verify
+    assertThat(spans).extracting(SteemSpanRecord::getName)
+        .containsExactly("http", "parse", "http", "parse", "fallback", "attempt", "call");
+    SteemSpanRecord root = spans.get(6);
+    assertThat(root.getParentSpanId()).isZero();
+    assertThat(root.getTags()).containsEntry("method", "database_api.get_config");
+    assertThat(spans).extracting(SteemSpanRecord::getTraceId).containsOnly(root.getTraceId());
+    SteemSpanRecord attempt = spans.get(5);
+    assertThat(attempt.getParentSpanId()).isEqualTo(root.getSpanId());
+    assertThat(attempt.getTags()).containsEntry("node", url).containsEntry("attempt", 1)
+        .containsEntry("api", "appbase");
+    assertThat(spans.get(4).getTags()).containsEntry("api", "condenser");
+    assertThat(spans.get(0).getTags()).containsEntry("status", HttpStatusCodes.STATUS_CODE_OK);
+    assertThat(spans.get(1).getTags()).containsEntry("response_bytes", (long) content1.length);
+    assertThat(spans.get(3).getTags()).containsEntry("response_bytes", (long) content2.length);
+  }
+
+  @Theory
+  public void warmUp(boolean isLegacyNode) throws Exception {
+    // set up
+    GenericUrl url = new GenericUrl("https://example.net/example");
+    SteemNode node = new SteemNode().setUrl(url).setAppbaseApiSupported(isLegacyNode);
+
+    SteemRpcResponse response = isLegacyNode
+        ? new SteemRpcResponse().setError(new SteemRpcResponse.Error()
+            .setCode(SteemRpcErrorCodes.JSON_RPC_LEGACY_NODE_ERROR))
+        : new SteemRpcResponse().setResult(ImmutableMap.of());
+
+    HttpResponse httpResponse = mock(HttpResponse.class);
+    given(httpRequest.execute()).willReturn(httpResponse);
+    given(httpResponse.getStatusCode()).willReturn(HttpStatusCodes.STATUS_CODE_OK);
+    given(httpResponse.parseAs(any())).willReturn(response);
+
+    SteemHttpClient sut
+        = new SteemHttpClient(httpTransport, JSON_FACTORY, ImmutableList.of(node), 1);
+
+    // execute
+    Single<List<SteemNodeProbe>> actual = sut.warmUp();
+
+    // verify
+    List<SteemNodeProbe> probes = actual.test().await().assertComplete().values().get(0);
+    assertThat(probes).hasSize(1);
+    assertThat(probes.get(0).isReachable()).isTrue();
+    assertThat(probes.get(0).getLatency()).isNotNull();
+    assertThat(node.isAppbaseApiSupported()).isEqualTo(!isLegacyNode);
+
+    then(httpRequestFactory).should().buildPostRequest(eq(url), any(HttpContent.class));
+  }
+
+  @Test
+  public void warmUp_unreachableNode() throws Exception {
+    // set up
+    GenericUrl failingUrl = new GenericUrl("https://failure.example.net/example");
+    SteemNode failingNode = new SteemNode().setUrl(failingUrl).setAppbaseApiSupported(true);
+
+    given(httpRequest.execute()).willThrow(new IOException());
+
+    SteemHttpClient sut
+        = new SteemHttpClient(httpTransport, JSON_FACTORY, ImmutableList.of(failingNode), 1);
+
+    // execute
+    Single<List<SteemNodeProbe>> actual = sut.warmUp();
+
+    // verify
+    List<SteemNodeProbe> probes = actual.test().await().assertComplete().values().get(0);
+    assertThat(probes).hasSize(1);
+    assertThat(probes.get(0).isReachable()).isFalse();
+    assertThat(probes.get(0).getError()).isInstanceOf(IOException.class);
+    assertThat(failingNode.isAppbaseApiSupported()).isTrue();
+  }
+
   @DataPoints("HTTP Status Code")
   public static final List<Integer> HTTP_STATUS_CODES
           = IntStream.range(200, 600).boxed().collect(ImmutableList.toImmutableList());
@@ -305,6 +417,127 @@ public class SteemHttpClientTest {
             .should(never()).buildPostRequest(eq(successiveUrl), any(HttpContent.class));
   }
 
+  @Test
+  public void call_rpcError_retrySameNode() throws Exception {
+    // set up
+    GenericUrl failingUrl = new GenericUrl("https://failure.example.net/example");
+    SteemNode failingNode = new SteemNode().setUrl(failingUrl).setAppbaseApiSupported(true);
+    GenericUrl nextUrl = new GenericUrl("https://success.example.net/example");
+    SteemNode nextNode = new SteemNode().setUrl(nextUrl).setAppbaseApiSupported(true);
+
+    HttpResponse httpResponse = mock(HttpResponse.class);
+    given(httpResponse.getStatusCode()).willReturn(HttpStatusCodes.STATUS_CODE_OK);
+    given(httpRequest.execute()).willReturn(httpResponse);
+
+    String errorMessage = "Request timeout";
+    SteemRpcResponse.Error error = new SteemRpcResponse.Error()
+            .setCode(SteemRpcErrorCodes.JSON_RPC_SERVER_ERROR).setMessage(errorMessage);
+    SteemRpcResponse errorResponse = new SteemRpcResponse().setError(error);
+    String expectedResult = RandomStringUtils.randomAlphabetic(8);
+    SteemRpcResponse successResponse = new SteemRpcResponse().setResult(expectedResult);
+    given(httpResponse.parseAs(any())).willReturn(errorResponse, successResponse);
+
+    SteemRpcErrorClassifier classifier = SteemRpcErrorClassifier.defaultBuilder()
+            .onMessage(SteemRpcErrorCodes.JSON_RPC_SERVER_ERROR, errorMessage,
+                    SteemRpcErrorAction.RETRY)
+            .build();
+    SteemHttpClient sut = new SteemHttpClient(httpTransport, JSON_FACTORY,
+            ImmutableList.of(failingNode, nextNode), 2, classifier);
+
+    // execute
+    SteemCallParameter parameter = SteemCallParameter.of(
+            RandomStringUtils.randomAlphabetic(8), RandomStringUtils.randomAlphabetic(8),
+            ImmutableMap.of(), ImmutableList.of());
+
+    TestObserver<SteemCallResult> actual = sut.call(parameter).test();
+
+    // verify
+    actual.assertNotComplete(); // The node is asked again after a delay
+    actual.awaitDone(5, TimeUnit.SECONDS).assertResult(SteemCallResult.of(expectedResult));
+
+    then(httpRequestFactory)
+            .should(times(2)).buildPostRequest(eq(failingUrl), any(HttpContent.class));
+    then(httpRequestFactory)
+            .should(never()).buildPostRequest(eq(nextUrl), any(HttpContent.class));
+    assertThat(classifier.getActionCounts()).containsEntry(SteemRpcErrorAction.RETRY, 1L);
+  }
+
+  @Test
+  public void forward() throws Exception {
+    // set up
+    GenericUrl failingUrl = new GenericUrl("https://failure.example.net/example");
+    SteemNode failingNode = new SteemNode().setUrl(failingUrl).setAppbaseApiSupported(true);
+    GenericUrl nextUrl = new GenericUrl("https://success.example.net/example");
+    SteemNode nextNode = new SteemNode().setUrl(nextUrl).setAppbaseApiSupported(true);
+
+    HttpResponse httpResponse = mock(HttpResponse.class);
+    given(httpResponse.getStatusCode()).willReturn(
+            HttpStatusCodes.STATUS_CODE_SERVER_ERROR, HttpStatusCodes.STATUS_CODE_OK);
+    given(httpRequest.execute()).willReturn(httpResponse);
+
+    SteemRpcResponse.Error error = new SteemRpcResponse.Error()
+            .setCode(SteemRpcErrorCodes.JSON_RPC_LEGACY_NODE_ERROR)
+            .setMessage(RandomStringUtils.randomAlphabetic(8));
+    SteemRpcResponse errorResponse = new SteemRpcResponse().setError(error);
+    given(httpResponse.parseAs(any())).willReturn(errorResponse);
+
+    SteemHttpClient sut = new SteemHttpClient(httpTransport, JSON_FACTORY,
+            ImmutableList.of(failingNode, nextNode), 2);
+
+    // execute
+    SteemRpcRequest request = new SteemRpcRequest().setJsonrpc("2.0")
+            .setMethod(RandomStringUtils.randomAlphabetic(8)).setParams(ImmutableMap.of());
+
+    Single<SteemRpcResponse> actual = sut.forward(request);
+
+    // verify
+    actual.test().assertResult(errorResponse);
+
+    then(httpRequestFactory)
+            .should().buildPostRequest(eq(failingUrl), any(HttpContent.class));
+    then(httpRequestFactory)
+            .should().buildPostRequest(eq(nextUrl), any(HttpContent.class));
+    assertThat(nextNode.isAppbaseApiSupported()).isTrue();
+  }
+
+  @Test
+  public void call_sharedRegistry() throws Exception {
+    // set up
+    GenericUrl failingUrl = new GenericUrl("https://failure.example.net/example");
+    GenericUrl successiveUrl = new GenericUrl("https://success.example.net/example");
+
+    HttpResponse errorHttpResponse = mock(HttpResponse.class);
+    given(errorHttpResponse.getStatusCode()).willReturn(HttpStatusCodes.STATUS_CODE_NOT_FOUND);
+    HttpResponse successHttpResponse = mock(HttpResponse.class);
+    given(successHttpResponse.getStatusCode()).willReturn(HttpStatusCodes.STATUS_CODE_OK);
+    given(httpRequest.execute()).willReturn(errorHttpResponse, successHttpResponse);
+    given(successHttpResponse.parseAs(any())).willReturn(new SteemRpcResponse().setResult("r"));
+
+    SteemNodeRegistry registry = new SteemNodeRegistry();
+    List<SteemNodeStatus> changes = new CopyOnWriteArrayList<>();
+    registry.addListener(changes::add);
+    SteemHttpClient[] clients = new SteemHttpClient[2];
+    for (int i = 0; i < clients.length; i++) {
+      clients[i] = new SteemHttpClient(httpTransport, JSON_FACTORY, ImmutableList.of(
+          new SteemNode().setUrl(failingUrl).setAppbaseApiSupported(true),
+          new SteemNode().setUrl(successiveUrl).setAppbaseApiSupported(true)),
+          2, SteemRpcErrorClassifier.defaults(), SteemTracer.disabled(), registry);
+    }
+
+    // execute
+    SteemCallParameter parameter = SteemCallParameter.of(
+        "database_api", "get_config", ImmutableMap.of(), ImmutableList.of());
+    clients[0].call(parameter).test().assertResult(SteemCallResult.of("r"));
+    clients[1].call(parameter).test().assertResult(SteemCallResult.of("r"));
+
+    // verify
+    then(httpRequestFactory).should().buildPostRequest(eq(failingUrl), any(HttpContent.class));
+    then(httpRequestFactory)
+        .should(times(2)).buildPostRequest(eq(successiveUrl), any(HttpContent.class));
+    assertThat(registry.get(failingUrl).isHealthy()).isFalse();
+    assertThat(changes).extracting(SteemNodeStatus::getUrl).containsExactly(failingUrl.build());
+  }
+
   @Test
   public void call_recoverFromMultipleFailure() throws Exception {
     call_recoverFromMultipleFailure(1);
@@ -0,0 +1,74 @@
+package com.ryu1sakai.steem.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+public class SteemNodeRegistryTest {
+
+  private static final String URL = "https://example.net/";
+
+  @Test
+  public void recordFailure() throws Exception {
+    SteemNodeRegistry sut = new SteemNodeRegistry(Duration.ofMillis(50), Duration.ofMillis(50));
+    List<SteemNodeStatus> changes = new ArrayList<>();
+    sut.addListener(changes::add);
+    SteemNodeState state = sut.get(URL);
+
+    state.recordFailure();
+    state.recordFailure();
+
+    assertThat(state.isHealthy()).isFalse();
+    assertThat(state.isAvailable()).isFalse();
+    Thread.sleep(100);
+    assertThat(state.isAvailable()).isTrue();
+
+    state.recordSuccess();
+
+    assertThat(state.isHealthy()).isTrue();
+    assertThat(changes).extracting(SteemNodeStatus::isHealthy).containsExactly(false, true);
+  }
+
+  @Test
+  public void recordSuccess_healthy() {
+    SteemNodeRegistry sut = new SteemNodeRegistry();
+    List<SteemNodeStatus> changes = new ArrayList<>();
+    sut.addListener(changes::add);
+    SteemNodeState state = sut.get(URL);
+
+    state.recordSuccess();
+    state.recordSuccess();
+
+    assertThat(state.isHealthy()).isTrue();
+    assertThat(changes).isEmpty();
+  }
+
+  @Test
+  public void setAppbaseApiSupported() {
+    SteemNodeRegistry sut = new SteemNodeRegistry();
+    List<SteemNodeStatus> changes = new ArrayList<>();
+    sut.addListener(changes::add);
+    SteemNodeState state = sut.get(URL);
+    assertThat(state.getAppbaseApiSupported()).isNull();
+
+    state.setAppbaseApiSupported(false);
+    state.setAppbaseApiSupported(false);
+
+    assertThat(sut.get(URL).getAppbaseApiSupported()).isFalse();
+    assertThat(changes).extracting(SteemNodeStatus::getAppbaseApiSupported)
+        .containsExactly(false);
+  }
+
+  @Test
+  public void recordLatency() {
+    SteemNodeState state = new SteemNodeRegistry().get(URL);
+
+    state.recordLatency(800);
+    state.recordLatency(1600);
+
+    assertThat(state.getLatency()).isEqualTo(Duration.ofNanos(900));
+  }
+}
@@ -0,0 +1,82 @@
+package com.ryu1sakai.steem.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.ryu1sakai.steem.client.model.SteemRpcResponse;
+import java.util.regex.Pattern;
+import org.junit.Test;
+
+public class SteemRpcErrorClassifierTest {
+
+  @Test
+  public void classify_defaults() {
+    SteemRpcErrorClassifier sut = SteemRpcErrorClassifier.defaults();
+
+    assertThat(sut.classify(error(SteemRpcErrorCodes.JSON_RPC_ERROR_DURING_CALL,
+        SteemRpcErrorMessages.UNABLE_TO_LOCK_DATABASE)))
+        .isEqualTo(SteemRpcErrorAction.FAILOVER);
+    assertThat(sut.classify(error(SteemRpcErrorCodes.JSON_RPC_LEGACY_NODE_ERROR, null)))
+        .isEqualTo(SteemRpcErrorAction.DOWNGRADE_TO_CONDENSER);
+    assertThat(sut.classify(error(SteemRpcErrorCodes.JSON_RPC_ERROR_DURING_CALL,
+        SteemRpcErrorMessages.INTERNAL_ERROR)))
+        .isEqualTo(SteemRpcErrorAction.FAIL);
+    assertThat(sut.classify(error(null, null))).isEqualTo(SteemRpcErrorAction.FAIL);
+  }
+
+  @Test
+  public void classify_precedence() {
+    SteemRpcErrorClassifier sut = SteemRpcErrorClassifier.builder()
+        .onCode(SteemRpcErrorCodes.JSON_RPC_SERVER_ERROR, SteemRpcErrorAction.FAIL)
+        .onMessagePattern(SteemRpcErrorCodes.JSON_RPC_SERVER_ERROR,
+            Pattern.compile("[Tt]imeout"), SteemRpcErrorAction.RETRY)
+        .onDataName(SteemRpcErrorCodes.JSON_RPC_SERVER_ERROR, "timeout_exception",
+            SteemRpcErrorAction.FAILOVER)
+        .onMessage(SteemRpcErrorCodes.JSON_RPC_SERVER_ERROR, "Request timeout",
+            SteemRpcErrorAction.DOWNGRADE_TO_CONDENSER)
+        .onDataName("assert_exception", SteemRpcErrorAction.FAILOVER)
+        .otherwise(SteemRpcErrorAction.RETRY)
+        .build();
+
+    assertThat(sut.classify(error(SteemRpcErrorCodes.JSON_RPC_SERVER_ERROR, "Request timeout")
+        .setData(new SteemRpcResponse.ErrorData().setName("timeout_exception"))))
+        .isEqualTo(SteemRpcErrorAction.DOWNGRADE_TO_CONDENSER);
+    assertThat(sut.classify(error(SteemRpcErrorCodes.JSON_RPC_SERVER_ERROR, "Read timeout")
+        .setData(new SteemRpcResponse.ErrorData().setName("timeout_exception"))))
+        .isEqualTo(SteemRpcErrorAction.FAILOVER);
+    assertThat(sut.classify(error(SteemRpcErrorCodes.JSON_RPC_SERVER_ERROR, "Read timeout")))
+        .isEqualTo(SteemRpcErrorAction.RETRY);
+    assertThat(sut.classify(error(SteemRpcErrorCodes.JSON_RPC_SERVER_ERROR, "Other")))
+        .isEqualTo(SteemRpcErrorAction.FAIL);
+    assertThat(sut.classify(error(SteemRpcErrorCodes.JSON_RPC_INTERNAL_ERROR, "Other")
+        .setData(new SteemRpcResponse.ErrorData().setName("assert_exception"))))
+        .isEqualTo(SteemRpcErrorAction.FAILOVER);
+    assertThat(sut.classify(error(SteemRpcErrorCodes.JSON_RPC_INTERNAL_ERROR, "Other")))
+        .isEqualTo(SteemRpcErrorAction.RETRY);
+  }
+
+  @Test
+  public void classify_counts() {
+    SteemRpcErrorClassifier sut = SteemRpcErrorClassifier.defaults();
+
+    SteemRpcResponse.Error error = error(SteemRpcErrorCodes.JUSSI_UPSTREAM_RESPONSE_ERROR,
+        SteemRpcErrorMessages.UPSTREAM_RESPONSE_ERROR);
+    sut.classify(error);
+    sut.classify(error);
+    sut.peek(error);
+    sut.classify(error(SteemRpcErrorCodes.JSON_RPC_PARSE_ERROR, null));
+
+    assertThat(sut.getActionCounts())
+        .containsEntry(SteemRpcErrorAction.FAILOVER, 2L)
+        .containsEntry(SteemRpcErrorAction.FAIL, 1L)
+        .containsEntry(SteemRpcErrorAction.RETRY, 0L);
+    assertThat(sut.getRuleCounts())
+        .containsEntry(String.format("code<%d> message<%s>",
+            SteemRpcErrorCodes.JUSSI_UPSTREAM_RESPONSE_ERROR,
+            SteemRpcErrorMessages.UPSTREAM_RESPONSE_ERROR), 2L)
+        .containsEntry("otherwise", 1L);
+  }
+
+  private static SteemRpcResponse.Error error(Integer code, String message) {
+    return new SteemRpcResponse.Error().setCode(code).setMessage(message);
+  }
+}
@@ -0,0 +1,133 @@
+package com.ryu1sakai.steem.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.google.api.client.json.JsonFactory;
+import com.google.api.client.json.jackson2.JacksonFactory;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.reactivex.Single;
+import io.reactivex.subscribers.TestSubscriber;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import okhttp3.OkHttpClient;
+import okhttp3.WebSocket;
+import okhttp3.WebSocketListener;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SteemWebSocketClientTest {
+
+  private static final JsonFactory JSON_FACTORY = new JacksonFactory();
+
+  private final MockWebServer server = new MockWebServer();
+
+  private SteemWebSocketClient sut;
+
+  @Before
+  public void setUp() throws Exception {
+    server.start();
+    sut = new SteemWebSocketClient(new OkHttpClient(), JSON_FACTORY,
+        server.url("/").toString().replaceFirst("^http", "ws"));
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    sut.close();
+    server.shutdown();
+  }
+
+  @Test
+  public void call_multiplexed() {
+    // Answers a pair of requests in the reverse order, echoing their methods
+    server.enqueue(new MockResponse().withWebSocketUpgrade(new WebSocketListener() {
+      private final List<Map<?, ?>> received = new ArrayList<>();
+
+      @Override
+      public synchronized void onMessage(WebSocket webSocket, String text) {
+        try {
+          received.add(JSON_FACTORY.fromString(text, Map.class));
+          if (received.size() == 2) {
+            for (int i = 1; i >= 0; i--) {
+              webSocket.send(JSON_FACTORY.toString(ImmutableMap.of(
+                  "jsonrpc", "2.0",
+                  "id", received.get(i).get("id"),
+                  "result", received.get(i).get("method"))));
+            }
+          }
+        } catch (IOException e) {
+          throw new AssertionError(e);
+        }
+      }
+    }));
+
+    Single<SteemCallResult> first = sut.call(SteemCallParameter.of(
+        "database_api", "get_config", ImmutableMap.of())).cache();
+    Single<SteemCallResult> second = sut.call(SteemCallParameter.of(
+        "database_api", "get_version", ImmutableMap.of())).cache();
+    first.subscribe();
+    second.subscribe();
+
+    assertThat(first.blockingGet().getResult()).isEqualTo("database_api.get_config");
+    assertThat(second.blockingGet().getResult()).isEqualTo("database_api.get_version");
+  }
+
+  @Test
+  public void call_blockingInSubscriber() {
+    // Answers each request with its method
+    server.enqueue(new MockResponse().withWebSocketUpgrade(new WebSocketListener() {
+      @Override
+      public void onMessage(WebSocket webSocket, String text) {
+        try {
+          Map<?, ?> request = JSON_FACTORY.fromString(text, Map.class);
+          webSocket.send(JSON_FACTORY.toString(ImmutableMap.of(
+              "jsonrpc", "2.0", "id", request.get("id"), "result", request.get("method"))));
+        } catch (IOException e) {
+          throw new AssertionError(e);
+        }
+      }
+    }));
+
+    // The second call would wait for the thread delivering the first response
+    Object actual = sut.call(SteemCallParameter.of("database_api", "get_config", ImmutableMap.of()))
+        .map(first -> sut.call(SteemCallParameter.of(
+            "database_api", "get_version", ImmutableMap.of())).blockingGet().getResult())
+        .timeout(5, TimeUnit.SECONDS)
+        .blockingGet();
+
+    assertThat(actual).isEqualTo("database_api.get_version");
+  }
+
+  @Test
+  public void notices() throws Exception {
+    server.enqueue(new MockResponse().withWebSocketUpgrade(new WebSocketListener() {
+      @Override
+      public void onMessage(WebSocket webSocket, String text) {
+        try {
+          Object id = JSON_FACTORY.fromString(text, Map.class).get("id");
+          webSocket.send(JSON_FACTORY.toString(
+              ImmutableMap.of("jsonrpc", "2.0", "id", id, "result", ImmutableMap.of())));
+          webSocket.send(JSON_FACTORY.toString(ImmutableMap.of(
+              "method", "notice", "params", ImmutableList.of(0, ImmutableList.of("block")))));
+          webSocket.close(1000, null);
+        } catch (IOException e) {
+          throw new AssertionError(e);
+        }
+      }
+    }));
+
+    TestSubscriber<List<?>> notices = sut.notices().test();
+    sut.call(SteemCallParameter.of("database_api", "set_block_applied_callback",
+        ImmutableMap.of())).blockingGet();
+
+    notices.awaitDone(5, TimeUnit.SECONDS);
+    notices.assertValueCount(1).assertError(IOException.class);
+    assertThat(notices.values().get(0).get(1)).isEqualTo(ImmutableList.of("block"));
+  }
+}
@@ -0,0 +1,116 @@
+package com.ryu1sakai.steem.client.replay;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.google.api.client.http.GenericUrl;
+import com.google.api.client.http.HttpTransport;
+import com.google.api.client.http.json.JsonHttpContent;
+import com.google.api.client.json.Json;
+import com.google.api.client.json.JsonFactory;
+import com.google.api.client.json.jackson2.JacksonFactory;
+import com.google.api.client.testing.http.MockHttpTransport;
+import com.google.api.client.testing.http.MockLowLevelHttpResponse;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.ryu1sakai.steem.client.SteemCallParameter;
+import com.ryu1sakai.steem.client.SteemCallResult;
+import com.ryu1sakai.steem.client.SteemHttpClient;
+import com.ryu1sakai.steem.client.SteemNode;
+import com.ryu1sakai.steem.client.model.SteemRpcResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SteemReplayHttpTransportTest {
+
+  private static final JsonFactory JSON_FACTORY = new JacksonFactory();
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void recordAndReplay() throws Exception {
+    // set up
+    Path path = folder.getRoot().toPath().resolve("records");
+    MockHttpTransport liveTransport = new MockHttpTransport.Builder()
+        .setLowLevelHttpResponse(new MockLowLevelHttpResponse()
+            .setContentType(Json.MEDIA_TYPE)
+            .setContent("{\"jsonrpc\":\"2.0\",\"id\":0,\"result\":{\"head_block_number\":42}}"))
+        .build();
+    SteemCallParameter parameter = SteemCallParameter.of(
+        "database_api", "get_dynamic_global_properties", ImmutableMap.of(), ImmutableList.of());
+
+    SteemCallResult recorded;
+    try (SteemRecordingHttpTransport transport
+             = new SteemRecordingHttpTransport(liveTransport, path)) {
+      recorded = client(transport).call(parameter).blockingGet();
+    }
+
+    // execute
+    SteemReplayHttpTransport replay = SteemReplayHttpTransport.load(
+        path, SteemReplayHttpTransport.Mode.FAST, JSON_FACTORY);
+    SteemCallResult actual = client(replay).call(parameter).blockingGet();
+
+    // verify
+    assertThat(actual).isEqualTo(recorded);
+    List<SteemHttpRecord> records = SteemHttpRecordFile.read(path);
+    assertThat(records).hasSize(1);
+    assertThat(records.get(0).getStatusCode()).isEqualTo(200);
+    assertThat(records.get(0).getLatencyNanos()).isPositive();
+  }
+
+  @Test
+  public void replay_anotherId() throws Exception {
+    // set up
+    byte[] recordedRequest = ("[{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"block_api.get_block\","
+        + "\"params\":{\"block_num\":1}},{\"jsonrpc\":\"2.0\",\"id\":2,"
+        + "\"method\":\"block_api.get_block\",\"params\":{\"block_num\":2}}]")
+        .getBytes(StandardCharsets.UTF_8);
+    byte[] recordedResponse = ("[{\"jsonrpc\":\"2.0\",\"id\":2,\"result\":{\"number\":2}},"
+        + "{\"jsonrpc\":\"2.0\",\"id\":1,\"result\":{\"number\":1}}]")
+        .getBytes(StandardCharsets.UTF_8);
+    SteemReplayHttpTransport replay = new SteemReplayHttpTransport(ImmutableList.of(
+        SteemHttpRecord.of("POST", "https://example.net/", recordedRequest, 0, 200, "OK",
+            Json.MEDIA_TYPE, recordedResponse)),
+        SteemReplayHttpTransport.Mode.FAST, JSON_FACTORY);
+    List<Object> request = ImmutableList.of(
+        ImmutableMap.of("jsonrpc", "2.0", "id", 11, "method", "block_api.get_block",
+            "params", ImmutableMap.of("block_num", 1)),
+        ImmutableMap.of("jsonrpc", "2.0", "id", 12, "method", "block_api.get_block",
+            "params", ImmutableMap.of("block_num", 2)));
+
+    // execute
+    Collection<SteemRpcResponse> actual = JSON_FACTORY.createJsonParser(replay
+        .createRequestFactory().buildPostRequest(new GenericUrl("https://example.net/"),
+            new JsonHttpContent(JSON_FACTORY, request))
+        .execute()
+        .getContent(), StandardCharsets.UTF_8)
+        .parseArrayAndClose(List.class, SteemRpcResponse.class);
+
+    // verify
+    assertThat(actual).extracting(SteemRpcResponse::getId).containsExactly(12L, 11L);
+    assertThat(actual).extracting(response -> ((Map<?, ?>) response.getResult()).get("number")
+        .toString()).containsExactly("2", "1");
+  }
+
+  @Test
+  public void replay_notRecorded() throws Exception {
+    SteemReplayHttpTransport replay = new SteemReplayHttpTransport(
+        ImmutableList.of(), SteemReplayHttpTransport.Mode.FAST, JSON_FACTORY);
+
+    client(replay).call(SteemCallParameter.of("database_api", "get_version", ImmutableMap.of()))
+        .test()
+        .assertError(Exception.class);
+  }
+
+  private static SteemHttpClient client(HttpTransport transport) {
+    SteemNode node = new SteemNode()
+        .setUrl(new GenericUrl("https://example.net/")).setAppbaseApiSupported(true);
+    return new SteemHttpClient(transport, JSON_FACTORY, ImmutableList.of(node), 1);
+  }
+}
@@ -0,0 +1,52 @@
+package com.ryu1sakai.steem.client.trace;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+public class SteemTracerTest {
+
+  @Test
+  public void start_notSampled() {
+    List<SteemSpanRecord> spans = new ArrayList<>();
+    SteemTracer sut = new SteemTracer(0, spans::add);
+
+    SteemSpan span = sut.start("call");
+    span.child("attempt").end();
+    span.end();
+
+    assertThat(span).isSameAs(SteemSpan.NOOP);
+    assertThat(spans).isEmpty();
+  }
+
+  @Test
+  public void start_sampled() {
+    List<SteemSpanRecord> spans = new ArrayList<>();
+    SteemTracer sut = new SteemTracer(1, spans::add);
+
+    SteemSpan span = sut.start("call").tag("method", "m").tag("ignored", null);
+    SteemSpan child = span.child("attempt");
+    child.end(new IllegalStateException());
+    child.end();
+    span.end();
+
+    assertThat(spans).extracting(SteemSpanRecord::getName).containsExactly("attempt", "call");
+    assertThat(spans.get(0).getError()).isInstanceOf(IllegalStateException.class);
+    assertThat(spans.get(0).getParentSpanId()).isEqualTo(spans.get(1).getSpanId());
+    assertThat(spans.get(1).getTags()).containsOnlyKeys("method");
+  }
+
+  @Test
+  public void end_sinkFailed() {
+    SteemTracer sut = new SteemTracer(1, span -> {
+      throw new IllegalStateException("Sink failed");
+    });
+
+    SteemSpan span = sut.start("call");
+    span.end();
+
+    assertThat(span).isNotSameAs(SteemSpan.NOOP);
+  }
+}
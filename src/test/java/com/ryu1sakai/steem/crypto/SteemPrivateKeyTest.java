@@ -0,0 +1,75 @@
+package com.ryu1sakai.steem.crypto;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.google.common.io.BaseEncoding;
+import java.nio.charset.StandardCharsets;
+import org.apache.commons.lang3.RandomStringUtils;
+import org.junit.Test;
+
+public class SteemPrivateKeyTest {
+
+  private static final String WIF = "5HueCGU8rMjxEXxiPuD5BDku4MkFqeZyd4dZ1jvhTVqvbTLvyTJ";
+
+  @Test
+  public void getPublicKey() {
+    byte[] one = new byte[32];
+    one[31] = 1;
+    SteemPrivateKey sut = SteemPrivateKey.fromBytes(one);
+
+    assertThat(BaseEncoding.base16().encode(sut.getPublicKey().toCompressed()))
+        .isEqualTo("0279BE667EF9DCBBAC55A06295CE870B07029BFCDB2DCE28D959F2815B16F81798");
+  }
+
+  @Test
+  public void fromWif() {
+    SteemPrivateKey sut = SteemPrivateKey.fromWif(WIF);
+
+    assertThat(sut.toWif()).isEqualTo(WIF);
+    SteemPublicKey publicKey = sut.getPublicKey();
+    assertThat(SteemPublicKey.fromString(publicKey.toString())).isEqualTo(publicKey);
+    assertThat(publicKey.toString()).startsWith("STM");
+  }
+
+  @Test
+  public void fromWif_checksumMismatch() {
+    String broken = WIF.substring(0, WIF.length() - 1) + "K";
+
+    assertThatThrownBy(() -> SteemPrivateKey.fromWif(broken))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  public void sign() {
+    SteemPrivateKey sut = SteemPrivateKey.fromWif(WIF);
+
+    for (int i = 0; i < 16; i++) {
+      byte[] digest = Hashes.sha256(
+          RandomStringUtils.randomAlphanumeric(32).getBytes(StandardCharsets.UTF_8));
+      SteemSignature signature = sut.sign(digest);
+
+      assertThat(signature.isCanonical()).isTrue();
+      assertThat(sut.sign(digest)).isEqualTo(signature); // Deterministic
+      assertThat(sut.getPublicKey().verify(digest, signature)).isTrue();
+      digest[0] ^= 1;
+      assertThat(sut.getPublicKey().verify(digest, signature)).isFalse();
+    }
+  }
+
+  @Test
+  public void memo() {
+    SteemPrivateKey from = SteemPrivateKey.fromLogin("alice", "memo", "password");
+    SteemPrivateKey to = SteemPrivateKey.fromLogin("bob", "memo", "password");
+    String message = RandomStringUtils.randomAlphanumeric(64);
+
+    String encrypted = SteemMemoCipher.encrypt(from, to.getPublicKey(), message);
+
+    assertThat(encrypted).startsWith("#").doesNotContain(message);
+    assertThat(SteemMemoCipher.decrypt(to, encrypted)).isEqualTo(message);
+    assertThat(SteemMemoCipher.decrypt(from, encrypted)).isEqualTo(message);
+    assertThatThrownBy(() -> SteemMemoCipher.decrypt(
+        SteemPrivateKey.fromLogin("carol", "memo", "password"), encrypted))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+}
@@ -0,0 +1,190 @@
+package com.ryu1sakai.steem.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.ryu1sakai.steem.protocol.SteemAppliedOperation;
+import com.ryu1sakai.steem.protocol.SteemBlock;
+import java.io.File;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SteemOperationIndexTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void find() throws Exception {
+    try (SteemOperationIndex sut = SteemOperationIndex.open(folder.getRoot().toPath())) {
+      indexOperations(sut);
+
+      assertThat(sut.find("alice", "transfer")).containsExactly(
+          SteemOperationIndex.posting(10, 0, false), SteemOperationIndex.posting(12, 3, false));
+      assertThat(sut.find("bob")).containsExactly(
+          SteemOperationIndex.posting(10, 0, false), SteemOperationIndex.posting(11, 1, false),
+          SteemOperationIndex.posting(11, 0, true));
+      assertThat(sut.find("carol")).isEmpty();
+      assertThat(sut.getLastBlockNumber()).isEqualTo(12);
+    }
+  }
+
+  @Test
+  public void find_acrossSegments() throws Exception {
+    Path directory = folder.getRoot().toPath();
+    try (SteemOperationIndex sut = SteemOperationIndex.open(directory, 2)) {
+      indexOperations(sut);
+      assertThat(sut.getSegmentCount()).isGreaterThan(1);
+    }
+
+    try (SteemOperationIndex sut = SteemOperationIndex.open(directory)) {
+      assertThat(sut.find("alice")).containsExactly(
+          SteemOperationIndex.posting(10, 0, false), SteemOperationIndex.posting(11, 1, false),
+          SteemOperationIndex.posting(12, 3, false));
+      assertThat(sut.find("bob", "author_reward")).containsExactly(
+          SteemOperationIndex.posting(11, 0, true));
+      assertThat(sut.getLastBlockNumber()).isEqualTo(12);
+    }
+  }
+
+  @Test
+  public void flush_mergeTiers() throws Exception {
+    try (SteemOperationIndex sut = SteemOperationIndex.open(folder.getRoot().toPath(), 1, 3)) {
+      indexOperations(sut);
+
+      assertThat(sut.getSegmentCount()).isLessThan(3);
+      assertThat(sut.find("alice")).containsExactly(
+          SteemOperationIndex.posting(10, 0, false), SteemOperationIndex.posting(11, 1, false),
+          SteemOperationIndex.posting(12, 3, false));
+    }
+  }
+
+  @Test
+  public void compact() throws Exception {
+    Path directory = folder.getRoot().toPath();
+    try (SteemOperationIndex sut = SteemOperationIndex.open(directory, 2)) {
+      indexOperations(sut);
+      sut.compact();
+
+      assertThat(sut.getSegmentCount()).isEqualTo(1);
+    }
+
+    assertThat(folder.getRoot().listFiles(File::isFile)).hasSize(1);
+    try (SteemOperationIndex sut = SteemOperationIndex.open(directory)) {
+      assertThat(sut.find("bob")).containsExactly(
+          SteemOperationIndex.posting(10, 0, false), SteemOperationIndex.posting(11, 1, false),
+          SteemOperationIndex.posting(11, 0, true));
+      assertThat(sut.getLastBlockNumber()).isEqualTo(12);
+    }
+  }
+
+  @Test
+  public void compact_maxSegmentSize() throws Exception {
+    Path directory = folder.getRoot().toPath();
+    try (SteemOperationIndex sut = SteemOperationIndex.open(directory, 1, 100)) {
+      indexOperations(sut);
+    }
+    long maxSegmentSize = 2 * Arrays.stream(folder.getRoot().listFiles(File::isFile))
+        .mapToLong(File::length).max().getAsLong();
+
+    try (SteemOperationIndex sut = SteemOperationIndex.open(directory, 1, 100, maxSegmentSize)) {
+      sut.compact();
+
+      assertThat(sut.getSegmentCount()).isGreaterThan(1);
+      assertThat(folder.getRoot().listFiles(File::isFile))
+          .allMatch(file -> file.length() <= maxSegmentSize);
+      assertThat(sut.find("alice")).containsExactly(
+          SteemOperationIndex.posting(10, 0, false), SteemOperationIndex.posting(11, 1, false),
+          SteemOperationIndex.posting(12, 3, false));
+    }
+  }
+
+  @Test
+  public void getLastBlockNumber_flushedMidBlock() throws Exception {
+    Path directory = folder.getRoot().toPath();
+    try (SteemOperationIndex sut = SteemOperationIndex.open(directory, 1)) {
+      sut.index(block(10, ImmutableList.of(ImmutableList.of("transfer", ImmutableMap.of(
+          "from", "alice", "to", "bob", "amount", "1.000 STEEM", "memo", "")))));
+      // Flushed before the rest of block 11 is indexed
+      sut.index(SteemAppliedOperation.of(11, 0, "vote",
+          ImmutableMap.of("voter", "alice", "author", "bob", "permlink", "p"), false));
+
+      assertThat(sut.getLastBlockNumber()).isEqualTo(10);
+    }
+
+    try (SteemOperationIndex sut = SteemOperationIndex.open(directory)) {
+      assertThat(sut.getLastBlockNumber()).isEqualTo(10);
+    }
+  }
+
+  @Test
+  public void index_blockWithoutOperations() throws Exception {
+    try (SteemOperationIndex sut = SteemOperationIndex.open(folder.getRoot().toPath())) {
+      sut.index(block(10, ImmutableList.of()));
+
+      assertThat(sut.getLastBlockNumber()).isEqualTo(10);
+    }
+  }
+
+  @Test
+  public void posting() {
+    long posting = SteemOperationIndex.posting(26_000_000L, 42, true);
+
+    assertThat(SteemOperationIndex.blockNumberOf(posting)).isEqualTo(26_000_000L);
+    assertThat(SteemOperationIndex.positionOf(posting)).isEqualTo(42);
+    assertThat(SteemOperationIndex.isVirtual(posting)).isTrue();
+  }
+
+  @Test
+  public void accountsOf() {
+    SteemAppliedOperation operation = SteemAppliedOperation.of(1, 0, "custom_json",
+        ImmutableMap.of("required_auths", ImmutableList.of(),
+            "required_posting_auths", ImmutableList.of("alice"), "id", "follow", "json", "{}"),
+        false);
+
+    assertThat(SteemOperationIndex.accountsOf(operation)).containsExactly("alice");
+  }
+
+  @Test
+  public void accountsOf_fillOrder() {
+    SteemAppliedOperation operation = SteemAppliedOperation.of(1, 0, "fill_order",
+        ImmutableMap.of("current_owner", "alice", "current_orderid", 1,
+            "current_pays", "1.000 SBD", "open_owner", "bob", "open_pays", "3.000 STEEM"),
+        true);
+
+    assertThat(SteemOperationIndex.accountsOf(operation)).containsExactlyInAnyOrder("alice", "bob");
+  }
+
+  @Test
+  public void accountsOf_recoverAccount() {
+    SteemAppliedOperation operation = SteemAppliedOperation.of(1, 0, "request_account_recovery",
+        ImmutableMap.of("recovery_account", "alice", "account_to_recover", "bob"), false);
+
+    assertThat(SteemOperationIndex.accountsOf(operation)).containsExactlyInAnyOrder("alice", "bob");
+  }
+
+  private static void indexOperations(SteemOperationIndex index) {
+    index.index(SteemAppliedOperation.of(10, 0, "transfer",
+        ImmutableMap.of("from", "alice", "to", "bob", "amount", "1.000 STEEM"), false));
+    index.index(SteemAppliedOperation.of(11, 1, "vote",
+        ImmutableMap.of("voter", "alice", "author", "bob", "permlink", "p"), false));
+    index.index(SteemAppliedOperation.of(11, 0, "author_reward",
+        ImmutableMap.of("author", "bob", "permlink", "p"), true));
+    index.index(SteemAppliedOperation.of(12, 3, "transfer",
+        ImmutableMap.of("from", "alice", "to", "alice", "amount", "1.000 STEEM"), false));
+    index.complete(12);
+  }
+
+  private static SteemBlock block(long number, List<Object> operations) {
+    return SteemBlock.fromResult(ImmutableMap.of(
+        "block_id", String.format("%08x", number) + "00000000000000000000000000000000",
+        "previous", String.format("%08x", number - 1) + "00000000000000000000000000000000",
+        "timestamp", "2018-09-15T08:25:40",
+        "transactions", ImmutableList.of(ImmutableMap.of("operations", operations))));
+  }
+}
@@ -0,0 +1,80 @@
+package com.ryu1sakai.steem.protocol;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.BaseEncoding;
+import com.ryu1sakai.steem.SteemAsset;
+import com.ryu1sakai.steem.SteemAssetSymbol;
+import com.ryu1sakai.steem.crypto.SteemPrivateKey;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+
+public class SteemTransactionTest {
+
+  private static final SteemChainState CHAIN_STATE = SteemChainState.of(0x00011234,
+      "00011234efcdab89000000000000000000000000", Instant.parse("2018-09-15T08:25:40Z"));
+
+  private static final SteemTransferOperation TRANSFER = SteemTransferOperation.of(
+      "alice", "bob", SteemAsset.of(1000, SteemAssetSymbol.STEEM), "");
+
+  @Test
+  public void writeTo() {
+    SteemTransaction sut = SteemTransaction.of(
+        CHAIN_STATE, Duration.ofMinutes(1), ImmutableList.of(TRANSFER));
+
+    SteemBinaryWriter writer = new SteemBinaryWriter();
+    sut.writeTo(writer);
+
+    assertThat(BaseEncoding.base16().lowerCase().encode(writer.toByteArray())).isEqualTo(
+        "3412" + "efcdab89" + "40c29c5b" // ref_block_num, ref_block_prefix, expiration
+            + "01" + "02" // 1 transfer operation
+            + "05616c696365" + "03626f62" // from, to
+            + "e803000000000000" + "03" + "535445454d0000" // 1.000 STEEM
+            + "00" // memo
+            + "00"); // extensions
+    assertThat(sut.getSerializedSize()).isEqualTo(writer.size());
+  }
+
+  @Test
+  public void sign() {
+    SteemTransaction transaction = SteemTransaction.of(
+        CHAIN_STATE, Duration.ofMinutes(1), ImmutableList.of(TRANSFER));
+    SteemPrivateKey key = SteemPrivateKey.fromLogin("alice", "active", "password");
+    SteemTransactionSigner sut = new SteemTransactionSigner();
+
+    SteemSignedTransaction actual = sut.sign(transaction, key);
+
+    assertThat(actual.getSignatures()).hasSize(1);
+    assertThat(key.getPublicKey().verify(
+        transaction.digest(SteemTransactionSigner.mainnetChainId()),
+        actual.getSignatures().get(0))).isTrue();
+
+    Map<String, Object> condenserJson = actual.toCondenserJson();
+    assertThat(condenserJson)
+        .containsEntry("ref_block_num", 0x1234)
+        .containsEntry("ref_block_prefix", 0x89abcdefL)
+        .containsEntry("expiration", "2018-09-15T08:26:40");
+    assertThat((List<?>) condenserJson.get("operations"))
+        .containsExactly(ImmutableList.of("transfer", TRANSFER.toCondenserValue()));
+    assertThat(TRANSFER.toCondenserValue()).containsEntry("amount", "1.000 STEEM");
+  }
+
+  @Test
+  public void signAll() {
+    List<SteemTransaction> transactions = ImmutableList.of(
+        SteemTransaction.of(CHAIN_STATE, Duration.ofMinutes(1), ImmutableList.of(TRANSFER)),
+        SteemTransaction.of(CHAIN_STATE, Duration.ofMinutes(2), ImmutableList.of(TRANSFER)),
+        SteemTransaction.of(CHAIN_STATE, Duration.ofMinutes(3), ImmutableList.of(TRANSFER)));
+    SteemPrivateKey key = SteemPrivateKey.fromLogin("alice", "active", "password");
+    SteemTransactionSigner sut = new SteemTransactionSigner();
+
+    List<SteemSignedTransaction> actual = sut.signAll(transactions, key);
+
+    assertThat(actual).extracting(SteemSignedTransaction::getTransaction)
+        .containsExactlyElementsOf(transactions);
+  }
+}
@@ -0,0 +1,159 @@
+package com.ryu1sakai.steem.proxy;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.times;
+
+import com.google.api.client.http.ByteArrayContent;
+import com.google.api.client.http.GenericUrl;
+import com.google.api.client.http.HttpRequestFactory;
+import com.google.api.client.http.javanet.NetHttpTransport;
+import com.google.api.client.json.JsonFactory;
+import com.google.api.client.json.jackson2.JacksonFactory;
+import com.ryu1sakai.steem.client.SteemHttpClient;
+import com.ryu1sakai.steem.client.model.SteemRpcResponse;
+import io.reactivex.Single;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+public class SteemProxyServerTest {
+
+  private static final JsonFactory JSON_FACTORY = new JacksonFactory();
+
+  @Rule
+  public MockitoRule mockito = MockitoJUnit.rule();
+
+  @Mock
+  private SteemHttpClient client;
+
+  private SteemProxyServer sut;
+
+  private final HttpRequestFactory requestFactory = new NetHttpTransport().createRequestFactory();
+
+  @Before
+  public void setUp() throws Exception {
+    given(client.forward(any())).willAnswer(invocation -> Single.just(
+        new SteemRpcResponse().setResult(invocation.<Object>getArgument(0).toString())));
+    sut = new SteemProxyServer(client, JSON_FACTORY, new InetSocketAddress("127.0.0.1", 0));
+    sut.start();
+  }
+
+  @After
+  public void tearDown() {
+    sut.close();
+  }
+
+  @Test
+  public void single() throws Exception {
+    Map<?, ?> actual = post("{\"jsonrpc\":\"2.0\",\"id\":\"abc\","
+        + "\"method\":\"database_api.get_version\",\"params\":{}}", Map.class);
+
+    assertThat(actual.get("id")).isEqualTo("abc");
+    assertThat((String) actual.get("result")).contains("database_api.get_version");
+  }
+
+  @Test
+  public void batch_cached() throws Exception {
+    List<?> actual = post("["
+        + "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"block_api.get_block\","
+        + "\"params\":{\"block_num\":1}},"
+        + "{\"jsonrpc\":\"2.0\",\"id\":2,\"method\":\"block_api.get_block\","
+        + "\"params\":{\"block_num\":1}}]", List.class);
+    post("{\"jsonrpc\":\"2.0\",\"id\":3,\"method\":\"block_api.get_block\","
+        + "\"params\":{\"block_num\":1}}", Map.class);
+
+    assertThat(actual).hasSize(2);
+    assertThat(((Map<?, ?>) actual.get(0)).get("id").toString()).isEqualTo("1");
+    assertThat(((Map<?, ?>) actual.get(1)).get("id").toString()).isEqualTo("2");
+    then(client).should(times(1)).forward(any());
+    SteemProxyStatistics statistics = sut.getStatistics();
+    assertThat(statistics.getRequestCount()).isEqualTo(3);
+    assertThat(statistics.getBatchCount()).isEqualTo(1);
+    assertThat(statistics.getUpstreamCallCount()).isEqualTo(1);
+    assertThat(statistics.getCacheHitCount() + statistics.getDeduplicatedCount()).isEqualTo(2);
+  }
+
+  @Test
+  public void batch_concurrent() throws Exception {
+    // Each call waits for the other one, so both fail unless they overlap
+    CountDownLatch latch = new CountDownLatch(2);
+    given(client.forward(any())).willReturn(Single.fromCallable(() -> {
+      latch.countDown();
+      if (!latch.await(5, TimeUnit.SECONDS)) {
+        throw new IllegalStateException("Calls did not overlap");
+      }
+      return new SteemRpcResponse().setResult("r");
+    }));
+
+    List<?> actual = post("["
+        + "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"block_api.get_block\","
+        + "\"params\":{\"block_num\":1}},"
+        + "{\"jsonrpc\":\"2.0\",\"id\":2,\"method\":\"block_api.get_block\","
+        + "\"params\":{\"block_num\":2}}]", List.class);
+
+    assertThat(actual).hasSize(2)
+        .allSatisfy(response -> assertThat(((Map<?, ?>) response).get("result")).isEqualTo("r"));
+  }
+
+  @Test
+  public void broadcast_notCached() throws Exception {
+    String request = "{\"jsonrpc\":\"2.0\",\"id\":1,"
+        + "\"method\":\"network_broadcast_api.broadcast_transaction\",\"params\":{}}";
+    post(request, Map.class);
+    post(request, Map.class);
+
+    then(client).should(times(2))
+        .forward(argThat(r -> r.getMethod().endsWith("broadcast_transaction")));
+  }
+
+  @Test
+  public void notAllowedMethod_notCached() throws Exception {
+    String request = "{\"jsonrpc\":\"2.0\",\"id\":1,"
+        + "\"method\":\"condenser_api.verify_authority\",\"params\":[]}";
+    post(request, Map.class);
+    post(request, Map.class);
+
+    then(client).should(times(2)).forward(any());
+  }
+
+  @Test
+  public void emptyBatch() throws Exception {
+    Map<?, ?> actual = post("[]", Map.class);
+
+    assertThat(actual.get("id")).isNull();
+    assertThat(((Map<?, ?>) actual.get("error")).get("code").toString()).isEqualTo("-32600");
+  }
+
+  @Test
+  public void malformed() throws Exception {
+    Map<?, ?> actual = post("{\"jsonrpc\":", Map.class);
+
+    assertThat(((Map<?, ?>) actual.get("error")).get("code").toString()).isEqualTo("-32700");
+  }
+
+  private <T> T post(String body, Class<T> type) throws Exception {
+    InetSocketAddress address = sut.getAddress();
+    GenericUrl url = new GenericUrl(
+        String.format("http://%s:%d/", address.getHostString(), address.getPort()));
+    return requestFactory
+        .buildPostRequest(url, new ByteArrayContent("application/json",
+            body.getBytes(StandardCharsets.UTF_8)))
+        .setParser(JSON_FACTORY.createJsonObjectParser())
+        .execute()
+        .parseAs(type);
+  }
+}